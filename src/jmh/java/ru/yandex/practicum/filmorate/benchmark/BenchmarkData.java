@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.DatasetGenerator;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Общая подготовка данных для бенчмарков: запуск приложения без веб-сервера на встроенной H2
+ * и наполнение хранилища набором {@link DatasetGenerator} заданного объема. Хранилище в БД наполняется
+ * пакетными вставками, хранилища в памяти - через их интерфейсы. Одинаковый объем дает одинаковый набор.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public final class BenchmarkData {
+    /**
+     * Хранилище в БД.
+     */
+    public static final String DB = "db";
+
+    /**
+     * Хранилище в памяти, профиль in-memory.
+     */
+    public static final String IN_MEMORY = "in-memory";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Метод запуска приложения без веб-сервера.
+     *
+     * @param database имя базы H2 в памяти.
+     * @param storage  вид хранилища: {@link #DB} или {@link #IN_MEMORY}.
+     * @return Контекст приложения.
+     */
+    public static ConfigurableApplicationContext start(String database, String storage) {
+        return builder(database, storage)
+                .web(WebApplicationType.NONE)
+                .run();
+    }
+
+    /**
+     * Метод запуска приложения с веб-сервером на случайном свободном порту.
+     * Журнал запросов logbook отключается, чтобы не мерить скорость записи в лог.
+     *
+     * @param database имя базы H2 в памяти.
+     * @param storage  вид хранилища: {@link #DB} или {@link #IN_MEMORY}.
+     * @param profiles дополнительные профили, например virtual.
+     * @return Контекст приложения, порт доступен через {@link #port(ConfigurableApplicationContext)}.
+     */
+    public static ConfigurableApplicationContext startServer(String database, String storage, String... profiles) {
+        return builder(database, storage)
+                .profiles(profiles)
+                .web(WebApplicationType.SERVLET)
+                .properties("server.port=0", "logging.level.org.zalando.logbook=OFF")
+                .run();
+    }
+
+    /**
+     * Метод получения порта запущенного веб-сервера.
+     *
+     * @param context контекст приложения с веб-сервером.
+     * @return Номер порта.
+     */
+    public static int port(ConfigurableApplicationContext context) {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    /**
+     * Метод наполнения хранилищ приложения: пользователи, фильмы с рейтингом и жанром,
+     * лайки по Ципфу и односторонняя дружба со степенным распределением количества друзей.
+     *
+     * @param context        контекст приложения.
+     * @param storage        вид хранилища: {@link #DB} или {@link #IN_MEMORY}.
+     * @param users          количество пользователей.
+     * @param films          количество фильмов.
+     * @param likesPerUser   среднее количество лайков одного пользователя.
+     * @param friendsPerUser среднее количество друзей одного пользователя.
+     */
+    public static void seed(ConfigurableApplicationContext context, String storage, int users, int films,
+                            int likesPerUser, int friendsPerUser) {
+        if (IN_MEMORY.equals(storage)) {
+            seedStorages(context.getBean(FilmStorage.class), context.getBean(UserStorage.class), users, films,
+                    likesPerUser, friendsPerUser);
+        } else {
+            seedDatabase(context.getBean(JdbcTemplate.class), users, films, likesPerUser, friendsPerUser);
+        }
+    }
+
+    /**
+     * Метод наполнения БД пакетными вставками.
+     *
+     * @param jdbc           шаблон для пакетной вставки.
+     * @param users          количество пользователей.
+     * @param films          количество фильмов.
+     * @param likesPerUser   среднее количество лайков одного пользователя.
+     * @param friendsPerUser среднее количество друзей одного пользователя.
+     */
+    public static void seedDatabase(JdbcTemplate jdbc, int users, int films, int likesPerUser, int friendsPerUser) {
+        generator(users, films, likesPerUser, friendsPerUser).load(jdbc);
+    }
+
+    /**
+     * Метод наполнения хранилищ через их интерфейсы тем же набором, что и БД.
+     *
+     * @param filmStorage    хранилище фильмов.
+     * @param userStorage    хранилище пользователей.
+     * @param users          количество пользователей.
+     * @param films          количество фильмов.
+     * @param likesPerUser   среднее количество лайков одного пользователя.
+     * @param friendsPerUser среднее количество друзей одного пользователя.
+     */
+    public static void seedStorages(FilmStorage filmStorage, UserStorage userStorage, int users, int films,
+                                    int likesPerUser, int friendsPerUser) {
+        DatasetGenerator generator = generator(users, films, likesPerUser, friendsPerUser);
+        long[] userIds = new long[users + 1];
+        long[] filmIds = new long[films + 1];
+        generator.generate(new DatasetGenerator.Sink() {
+            @Override
+            public void user(int user, LocalDate birthday) {
+                userIds[user] = userStorage.create(User.builder()
+                        .email(generator.login(user) + "@example.com")
+                        .login(generator.login(user))
+                        .name("Пользователь " + user)
+                        .birthday(birthday)
+                        .build()).getId();
+            }
+
+            @Override
+            public void film(int film, int ratingId, int genreId, LocalDate releaseDate, int duration) {
+                filmIds[film] = filmStorage.create(Film.builder()
+                        .name("Фильм " + film)
+                        .description("Описание фильма " + film)
+                        .releaseDate(releaseDate)
+                        .duration(duration)
+                        .mpa(new Rating((long) ratingId, null))
+                        .genres(new LinkedHashSet<>(List.of(new Genre((long) genreId, null))))
+                        .build()).getId();
+            }
+
+            @Override
+            public void like(int film, int user) {
+                filmStorage.addLike(filmIds[film], userIds[user]);
+            }
+
+            @Override
+            public void friend(int user, int friend) {
+                userStorage.addFriend(userIds[user], userIds[friend], false);
+            }
+        });
+    }
+
+    private static SpringApplicationBuilder builder(String database, String storage) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties("spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN");
+        if (IN_MEMORY.equals(storage)) {
+            builder.profiles(IN_MEMORY);
+        }
+        return builder;
+    }
+
+    private static DatasetGenerator generator(int users, int films, int likesPerUser, int friendsPerUser) {
+        return DatasetGenerator.builder()
+                .users(users)
+                .films(films)
+                .likesPerUser(likesPerUser)
+                .friendsPerUser(friendsPerUser)
+                .build();
+    }
+}
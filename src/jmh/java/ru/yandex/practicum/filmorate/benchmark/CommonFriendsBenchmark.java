@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.FriendAdjacency;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение поиска общих друзей двух пользователей: пересечение битовых карт против
+ * прежнего обхода одного HashSet с проверкой по другому.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CommonFriendsBenchmark {
+    /**
+     * Количество друзей у каждого из двух пользователей.
+     */
+    @Param({"1000", "50000"})
+    private int friends;
+
+    /**
+     * Количество пользователей сервиса, из которых выбираются друзья.
+     */
+    @Param({"200000", "1000000"})
+    private int users;
+
+    private FriendAdjacency adjacency;
+
+    private Set<Long> userFriends;
+
+    private Set<Long> otherFriends;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        adjacency = new FriendAdjacency();
+        userFriends = new HashSet<>();
+        otherFriends = new HashSet<>();
+        while (userFriends.size() < friends) {
+            userFriends.add(3L + random.nextInt(users));
+        }
+        while (otherFriends.size() < friends) {
+            otherFriends.add(3L + random.nextInt(users));
+        }
+        adjacency.put(1, userFriends);
+        adjacency.put(2, otherFriends);
+    }
+
+    /**
+     * Текущий путь: AND битовых карт.
+     */
+    @Benchmark
+    public List<Long> bitmapCommon() {
+        return adjacency.getCommon(1, 2);
+    }
+
+    /**
+     * Только количество общих друзей, без построения списка.
+     */
+    @Benchmark
+    public int bitmapCountCommon() {
+        return adjacency.countCommon(1, 2);
+    }
+
+    /**
+     * Прежний путь: обход меньшего множества с проверкой по большему.
+     */
+    @Benchmark
+    public List<Long> hashSetCommon() {
+        Set<Long> smaller = userFriends.size() <= otherFriends.size() ? userFriends : otherFriends;
+        Set<Long> larger = smaller == userFriends ? otherFriends : userFriends;
+        return smaller.stream()
+                .filter(larger::contains)
+                .toList();
+    }
+}
@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.RatingStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmExtractor;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmGenresExtractor;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Разбор результатов запросов без БД: строки подаются из {@link SimpleResultSet} в памяти,
+ * поэтому измеряется только работа FilmExtractor и FilmGenresExtractor и выделяемая ими память.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilmExtractorsBenchmark {
+    /**
+     * Количество жанров у фильма, разбираемого FilmExtractor.
+     */
+    @Param({"3"})
+    private int genresPerFilm;
+
+    /**
+     * Количество строк (фильм, жанр), разбираемых FilmGenresExtractor.
+     */
+    @Param({"10000"})
+    private int genreRows;
+
+    private FilmExtractor filmExtractor;
+
+    private FilmGenresExtractor filmGenresExtractor;
+
+    private SimpleResultSet filmRows;
+
+    private SimpleResultSet filmGenreRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GenreStorage genreStorage = mock(GenreStorage.class);
+        when(genreStorage.findAll()).thenReturn(LongStream.rangeClosed(1, 6)
+                .mapToObj(id -> new Genre(id, "Жанр " + id))
+                .toList());
+        RatingStorage ratingStorage = mock(RatingStorage.class);
+        when(ratingStorage.findAll()).thenReturn(List.of(new Rating(1L, "G"), new Rating(2L, "PG")));
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(genreStorage, ratingStorage);
+        filmExtractor = new FilmExtractor(referenceDataCache);
+        filmGenresExtractor = new FilmGenresExtractor(referenceDataCache);
+
+        filmRows = new SimpleResultSet();
+        filmRows.setAutoClose(false);
+        filmRows.addColumn("film_id", Types.BIGINT, 19, 0);
+        filmRows.addColumn("name", Types.VARCHAR, 255, 0);
+        filmRows.addColumn("description", Types.VARCHAR, 200, 0);
+        filmRows.addColumn("duration", Types.INTEGER, 10, 0);
+        filmRows.addColumn("release_date", Types.TIMESTAMP, 26, 0);
+        filmRows.addColumn("mpa", Types.BIGINT, 19, 0);
+        filmRows.addColumn("genre_id", Types.BIGINT, 19, 0);
+        Timestamp releaseDate = Timestamp.valueOf(LocalDateTime.of(2000, 1, 1, 0, 0));
+        for (int i = 0; i < genresPerFilm; i++) {
+            filmRows.addRow(1L, "film 1", "description 1", 100, releaseDate, 1L, 1L + i % 6);
+        }
+
+        filmGenreRows = new SimpleResultSet();
+        filmGenreRows.setAutoClose(false);
+        filmGenreRows.addColumn("film_id", Types.BIGINT, 19, 0);
+        filmGenreRows.addColumn("genre_id", Types.BIGINT, 19, 0);
+        for (int i = 0; i < genreRows; i++) {
+            filmGenreRows.addRow(1L + i / 2, 1L + i % 6);
+        }
+    }
+
+    /**
+     * Фильм по id: одна строка на каждый жанр фильма.
+     */
+    @Benchmark
+    public Film filmExtractor() throws SQLException {
+        filmRows.beforeFirst();
+        return filmExtractor.extractData(filmRows);
+    }
+
+    /**
+     * Жанры всех фильмов страницы или каталога.
+     */
+    @Benchmark
+    public Map<Long, LinkedHashSet<Genre>> filmGenresExtractor() throws SQLException {
+        filmGenreRows.beforeFirst();
+        return filmGenresExtractor.extractData(filmGenreRows);
+    }
+}
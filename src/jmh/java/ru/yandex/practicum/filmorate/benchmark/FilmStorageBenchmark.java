@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Основные чтения хранилища фильмов в БД и в памяти: весь каталог, фильм по id и популярные фильмы.
+ * Пропускная способность и распределение задержек снимаются одним запуском,
+ * скорость выделения памяти - профилировщиком gc (включен в аргументах профиля jmh по умолчанию).
+ * Объем данных задается параметрами, например -p films=100000 -p users=10000.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FilmStorageBenchmark {
+    /**
+     * Вид хранилища.
+     */
+    @Param({BenchmarkData.DB, BenchmarkData.IN_MEMORY})
+    private String storage;
+
+    /**
+     * Количество фильмов в каталоге.
+     */
+    @Param({"10000"})
+    private int films;
+
+    /**
+     * Количество пользователей.
+     */
+    @Param({"1000"})
+    private int users;
+
+    /**
+     * Количество лайков от одного пользователя.
+     */
+    @Param({"20"})
+    private int likesPerUser;
+
+    private ConfigurableApplicationContext context;
+
+    private FilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.start("filmStorageBenchmark", storage);
+        BenchmarkData.seed(context, storage, users, films, likesPerUser, 0);
+        filmStorage = context.getBean(FilmStorage.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Весь каталог с количествами лайков.
+     */
+    @Benchmark
+    public Collection<Film> findAll() {
+        return filmStorage.findAll();
+    }
+
+    /**
+     * Случайный фильм с жанрами и лайками.
+     */
+    @Benchmark
+    public Film findById() {
+        return filmStorage.findById(1 + ThreadLocalRandom.current().nextInt(films));
+    }
+
+    /**
+     * Десять самых популярных фильмов.
+     */
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmStorage.getPopularFilms(10);
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.FriendGraph;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подбор возможных друзей для пользователя с большим количеством друзей: граф CSR с последовательным
+ * и параллельным подсчетом против подсчета по HashMap множеств. Режим SampleTime выдает перцентили,
+ * целевое значение p99 - не более 20 мс для пользователя с 5000 друзей.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FriendSuggestionsBenchmark {
+    /**
+     * Количество друзей у пользователя, которому подбираются друзья.
+     */
+    @Param({"5000"})
+    private int friends;
+
+    /**
+     * Среднее количество друзей у остальных пользователей.
+     */
+    @Param({"50"})
+    private int degree;
+
+    /**
+     * Количество пользователей сервиса.
+     */
+    @Param({"200000"})
+    private int users;
+
+    private FriendGraph sequentialGraph;
+
+    private FriendGraph parallelGraph;
+
+    private Map<Long, Set<Long>> friendSets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        friendSets = new HashMap<>();
+        for (long userId = 1; userId <= users; userId++) {
+            int count = userId == 1 ? friends : random.nextInt(2 * degree + 1);
+            Set<Long> userFriends = new TreeSet<>();
+            while (userFriends.size() < count) {
+                long friendId = 1L + random.nextInt(users);
+                if (friendId != userId) {
+                    userFriends.add(friendId);
+                }
+            }
+            friendSets.put(userId, userFriends);
+        }
+
+        sequentialGraph = new FriendGraph(FriendGraph.DEFAULT_COMPACT_THRESHOLD, Integer.MAX_VALUE);
+        parallelGraph = new FriendGraph(FriendGraph.DEFAULT_COMPACT_THRESHOLD, 0);
+        FriendGraph.Builder sequentialBuilder = sequentialGraph.startLoad(users);
+        FriendGraph.Builder parallelBuilder = parallelGraph.startLoad(users);
+        for (long userId = 1; userId <= users; userId++) {
+            for (long friendId : friendSets.get(userId)) {
+                sequentialBuilder.add(userId, friendId);
+                parallelBuilder.add(userId, friendId);
+            }
+        }
+        sequentialGraph.finishLoad(sequentialBuilder);
+        parallelGraph.finishLoad(parallelBuilder);
+    }
+
+    /**
+     * Граф CSR, подсчет в одном потоке.
+     */
+    @Benchmark
+    public List<Long> csrSequential() {
+        return sequentialGraph.suggest(1, 10);
+    }
+
+    /**
+     * Граф CSR, подсчет частями в общем пуле ForkJoin.
+     */
+    @Benchmark
+    public List<Long> csrParallel() {
+        return parallelGraph.suggest(1, 10);
+    }
+
+    /**
+     * Подсчет по множествам друзей в HashMap с упаковкой id.
+     */
+    @Benchmark
+    public List<Long> hashMapCounts() {
+        Set<Long> userFriends = friendSets.get(1L);
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Long friendId : userFriends) {
+            for (Long candidate : friendSets.get(friendId)) {
+                if (candidate != 1L && !userFriends.contains(candidate)) {
+                    counts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
\ No newline at end of file
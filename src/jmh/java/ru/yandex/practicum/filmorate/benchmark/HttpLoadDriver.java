@@ -0,0 +1,347 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.google.gson.GsonBuilder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Нагрузочный прогон приложения по HTTP: приложение запускается на случайном порту, наполняется набором
+ * {@link ru.yandex.practicum.filmorate.storage.DatasetGenerator}, после чего клиенты на виртуальных потоках
+ * в замкнутом цикле выполняют заданную смесь запросов. По каждой операции и в сумме считаются пропускная
+ * способность, ошибки и задержки в HDR-гистограммах; отчет пишется в JSON, который удобно сравнивать между коммитами.
+ * Запуск: mvn -Pjmh,load test-compile exec:exec [-Dload.args="--clients=200 --duration=60"].
+ * Параметры: --storage (db или in-memory), --threads (platform или virtual - потоки обработки запросов
+ * в приложении), --users, --films, --likes-per-user, --friends-per-user, --clients, --warmup и --duration
+ * в секундах, --mix (например films-page=10,popular=30,like=10), --out.
+ * Сравнение потоков на дружбе и лайках: --mix=like=10,unlike=10,friends=25,common=14 --clients=1000
+ * с --threads=platform и --threads=virtual. Ответы 503 (bulkhead отказал в соединении) считаются
+ * ошибками и отдельно отказами.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public final class HttpLoadDriver {
+    /**
+     * Смесь запросов по умолчанию: вес каждой операции.
+     */
+    private static final String DEFAULT_MIX =
+            "films=1,films-page=10,popular=30,like=10,unlike=10,friends=25,common=14";
+
+    /**
+     * Максимальная учитываемая задержка, мкс.
+     */
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * Потоки обработки запросов профиля virtual.
+     */
+    private static final String VIRTUAL = "virtual";
+
+    private final Map<String, String> options;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String baseUrl;
+
+    private long firstUserId;
+
+    private long firstFilmId;
+
+    private volatile boolean running = true;
+
+    private HttpLoadDriver(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("storage", BenchmarkData.DB);
+        options.put("threads", "platform");
+        options.put("users", "10000");
+        options.put("films", "2000");
+        options.put("likes-per-user", "20");
+        options.put("friends-per-user", "20");
+        options.put("clients", "64");
+        options.put("warmup", "10");
+        options.put("duration", "30");
+        options.put("mix", DEFAULT_MIX);
+        options.put("out", "target/load-result.json");
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0 || !options.containsKey(arg.substring(2, separator))) {
+                throw new IllegalArgumentException("Неизвестный параметр: " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        new HttpLoadDriver(options).run();
+    }
+
+    private void run() throws Exception {
+        List<Operation> mix = parseMix(options.get("mix"));
+        int users = intOption("users");
+        int films = intOption("films");
+        String[] profiles = VIRTUAL.equals(options.get("threads")) ? new String[]{VIRTUAL} : new String[0];
+        try (ConfigurableApplicationContext context = BenchmarkData.startServer("load", options.get("storage"),
+                profiles)) {
+            long start = System.nanoTime();
+            BenchmarkData.seed(context, options.get("storage"), users, films, intOption("likes-per-user"),
+                    intOption("friends-per-user"));
+            System.out.println("Seeded " + users + " users and " + films + " films in "
+                    + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) + " s");
+            firstUserId = context.getBean(UserStorage.class).findPage(0, 1).getFirst().getId();
+            firstFilmId = context.getBean(FilmStorage.class).findPage(0, 1, false).getFirst().getId();
+            baseUrl = "http://localhost:" + BenchmarkData.port(context);
+
+            Map<String, Object> report = drive(mix, users, films);
+            String json = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(report);
+            Path out = Path.of(options.get("out"));
+            if (out.getParent() != null) {
+                Files.createDirectories(out.getParent());
+            }
+            Files.writeString(out, json, StandardCharsets.UTF_8);
+            System.out.println("Report written to " + out.toAbsolutePath());
+        }
+    }
+
+    /**
+     * Метод прогона нагрузки: прогрев, сброс гистограмм и замер.
+     *
+     * @param mix   смесь операций.
+     * @param users количество пользователей набора.
+     * @param films количество фильмов набора.
+     * @return Отчет прогона.
+     */
+    private Map<String, Object> drive(List<Operation> mix, int users, int films) throws InterruptedException {
+        int totalWeight = mix.stream().mapToInt(Operation::weight).sum();
+        int clients = intOption("clients");
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < clients; i++) {
+            executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running) {
+                    Operation operation = pick(mix, random.nextInt(totalWeight));
+                    long userId = firstUserId + random.nextInt(users);
+                    long otherId = firstUserId + random.nextInt(users);
+                    long filmId = firstFilmId + random.nextInt(films);
+                    operation.execute(client, baseUrl, new Target(userId, otherId, filmId));
+                }
+            });
+        }
+
+        TimeUnit.SECONDS.sleep(intOption("warmup"));
+        mix.forEach(Operation::reset);
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(intOption("duration"));
+        List<Histogram> histograms = new ArrayList<>();
+        long[] errors = new long[mix.size()];
+        long[] rejections = new long[mix.size()];
+        for (int i = 0; i < mix.size(); i++) {
+            histograms.add(mix.get(i).recorder.getIntervalHistogram());
+            errors[i] = mix.get(i).errors.sum();
+            rejections[i] = mix.get(i).rejections.sum();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running = false;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+        long totalErrors = 0;
+        long totalRejections = 0;
+        for (int i = 0; i < mix.size(); i++) {
+            Operation operation = mix.get(i);
+            Histogram histogram = histograms.get(i);
+            total.add(histogram);
+            totalErrors += errors[i];
+            totalRejections += rejections[i];
+            operations.put(operation.name, summary(histogram, errors[i], rejections[i], seconds));
+            print(operation.name, histogram, seconds);
+        }
+        print("total", total, seconds);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", options);
+        report.put("durationSeconds", seconds);
+        report.put("total", summary(total, totalErrors, totalRejections, seconds));
+        report.put("operations", operations);
+        return report;
+    }
+
+    private Map<String, Object> summary(Histogram histogram, long errors, long rejections, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("rejections", rejections);
+        summary.put("throughputPerSecond", histogram.getTotalCount() / seconds);
+        summary.put("meanMicros", histogram.getMean());
+        summary.put("p50Micros", histogram.getValueAtPercentile(50));
+        summary.put("p90Micros", histogram.getValueAtPercentile(90));
+        summary.put("p99Micros", histogram.getValueAtPercentile(99));
+        summary.put("p999Micros", histogram.getValueAtPercentile(99.9));
+        summary.put("maxMicros", histogram.getMaxValue());
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        summary.put("histogram", Base64.getEncoder().encodeToString(
+                Arrays.copyOf(buffer.array(), length)));
+        return summary;
+    }
+
+    private void print(String name, Histogram histogram, double seconds) {
+        System.out.printf("%-12s %10.1f req/s  p50 %8.2f ms  p99 %8.2f ms  p999 %8.2f ms  max %8.2f ms%n", name,
+                histogram.getTotalCount() / seconds, histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private int intOption(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private static Operation pick(List<Operation> mix, int point) {
+        for (Operation operation : mix) {
+            point -= operation.weight;
+            if (point < 0) {
+                return operation;
+            }
+        }
+        return mix.getLast();
+    }
+
+    /**
+     * Метод разбора смеси запросов вида name=weight,name=weight.
+     *
+     * @param mix описание смеси.
+     * @return Операции с весами.
+     */
+    private static List<Operation> parseMix(String mix) {
+        List<Operation> operations = new ArrayList<>();
+        for (String item : mix.split(",")) {
+            String[] parts = item.trim().split("=");
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                operations.add(operation(parts[0], weight));
+            }
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Смесь запросов пуста: " + mix);
+        }
+        return operations;
+    }
+
+    private static Operation operation(String name, int weight) {
+        return switch (name) {
+            case "films" -> new Operation(name, weight, "GET", target -> "/films");
+            case "films-page" -> new Operation(name, weight, "GET",
+                    target -> "/films?limit=" + PAGE_SIZE + "&after=" + (target.filmId() - 1));
+            case "popular" -> new Operation(name, weight, "GET", target -> "/films/popular?count=10");
+            case "like" -> new Operation(name, weight, "PUT",
+                    target -> "/films/" + target.filmId() + "/like/" + target.userId());
+            case "unlike" -> new Operation(name, weight, "DELETE",
+                    target -> "/films/" + target.filmId() + "/like/" + target.userId());
+            case "friends" -> new Operation(name, weight, "GET", target -> "/users/" + target.userId() + "/friends");
+            case "common" -> new Operation(name, weight, "GET",
+                    target -> "/users/" + target.userId() + "/friends/common/" + target.otherId());
+            default -> throw new IllegalArgumentException("Неизвестная операция: " + name);
+        };
+    }
+
+    /**
+     * Случайные id для одного запроса.
+     *
+     * @param userId  пользователь.
+     * @param otherId другой пользователь для общих друзей.
+     * @param filmId  фильм.
+     */
+    private record Target(long userId, long otherId, long filmId) {
+    }
+
+    /**
+     * Операция смеси со своей гистограммой задержек и счетчиком ошибок.
+     */
+    private static final class Operation {
+        private final String name;
+        private final int weight;
+        private final String method;
+        private final Function<Target, String> path;
+        private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+
+        private Operation(String name, int weight, String method, Function<Target, String> path) {
+            this.name = name;
+            this.weight = weight;
+            this.method = method;
+            this.path = path;
+        }
+
+        private int weight() {
+            return weight;
+        }
+
+        /**
+         * Метод выполнения запроса с замером задержки. Ответы с ошибкой учитываются и в задержках,
+         * и в счетчике ошибок, сетевые сбои - только в счетчике ошибок.
+         */
+        private void execute(HttpClient client, String baseUrl, Target target) {
+            HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(baseUrl + path.apply(target)))
+                    .method(method, HttpRequest.BodyPublishers.noBody())
+                    .build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(httpRequest, HttpResponse.BodyHandlers.discarding());
+                recorder.recordValue(Math.min(MAX_LATENCY_MICROS,
+                        TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)));
+                if (response.statusCode() >= 400) {
+                    errors.increment();
+                }
+                if (response.statusCode() == 503) {
+                    rejections.increment();
+                }
+            } catch (IOException e) {
+                errors.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void reset() {
+            recorder.getIntervalHistogram();
+            errors.reset();
+            rejections.reset();
+        }
+    }
+}
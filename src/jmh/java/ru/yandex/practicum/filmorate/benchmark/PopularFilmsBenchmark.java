@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение получения популярных фильмов: ранжирование в БД против сортировки всего каталога в JVM.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PopularFilmsBenchmark {
+    /**
+     * Количество фильмов в каталоге.
+     */
+    @Param({"10000"})
+    private int films;
+
+    /**
+     * Количество пользователей.
+     */
+    @Param({"1000"})
+    private int users;
+
+    /**
+     * Количество лайков от одного пользователя.
+     */
+    @Param({"20"})
+    private int likesPerUser;
+
+    /**
+     * Объем выборки популярных фильмов.
+     */
+    @Param({"10"})
+    private int count;
+
+    private ConfigurableApplicationContext context;
+
+    private FilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.start("popularFilmsBenchmark", BenchmarkData.DB);
+        BenchmarkData.seedDatabase(context.getBean(JdbcTemplate.class), users, films, likesPerUser, 0);
+        filmStorage = context.getBean(FilmStorage.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Текущий путь: агрегирование и LIMIT в БД, догрузка данных только по отобранным фильмам.
+     */
+    @Benchmark
+    public List<Film> rankedInDatabase() {
+        return filmStorage.getPopularFilms(count);
+    }
+
+    /**
+     * Прежний путь: загрузка всего каталога с лайками и сортировка в JVM.
+     */
+    @Benchmark
+    public List<Film> sortedInJvm() {
+        return filmStorage.findAll(true).stream()
+                .sorted((f0, f1) -> -1 * Integer.compare(f0.getLikesUserId() == null ? 0
+                        : f0.getLikesUserId().size(), f1.getLikesUserId() == null ? 0 : f1.getLikesUserId().size()))
+                .limit(count)
+                .toList();
+    }
+}
\ No newline at end of file
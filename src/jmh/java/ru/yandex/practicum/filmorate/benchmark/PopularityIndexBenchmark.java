@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.PopularityIndex;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение получения популярных фильмов в памяти: индекс популярности против сортировки всего каталога.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PopularityIndexBenchmark {
+    /**
+     * Количество фильмов в каталоге.
+     */
+    @Param({"10000", "100000"})
+    private int films;
+
+    /**
+     * Объем выборки популярных фильмов.
+     */
+    @Param({"10"})
+    private int count;
+
+    private PopularityIndex popularityIndex;
+
+    private Map<Long, Integer> likesByFilm;
+
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(42);
+        popularityIndex = new PopularityIndex();
+        likesByFilm = new HashMap<>();
+        for (long filmId = 1; filmId <= films; filmId++) {
+            double skewed = random.nextDouble();
+            int likes = (int) (skewed * skewed * skewed * 1000);
+            popularityIndex.add(filmId);
+            popularityIndex.change(filmId, likes);
+            likesByFilm.put(filmId, likes);
+        }
+    }
+
+    /**
+     * Текущий путь: первые count элементов индекса.
+     */
+    @Benchmark
+    public List<Long> indexTop() {
+        return popularityIndex.top(count);
+    }
+
+    /**
+     * Прежний путь: сортировка всего каталога по количеству лайков.
+     */
+    @Benchmark
+    public List<Long> sortedTop() {
+        return likesByFilm.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Стоимость поддержания индекса: лайк и его отмена для случайного фильма.
+     */
+    @Benchmark
+    public void indexLikeAndUnlike() {
+        long filmId = 1 + random.nextInt(films);
+        popularityIndex.change(filmId, 1);
+        popularityIndex.change(filmId, -1);
+    }
+}
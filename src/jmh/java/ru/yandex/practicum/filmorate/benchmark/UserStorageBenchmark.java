@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтения друзей в хранилище пользователей в БД и в памяти: все друзья и общие друзья случайных пользователей.
+ * Пропускная способность и распределение задержек снимаются одним запуском, скорость выделения памяти -
+ * профилировщиком gc. Объем данных задается параметрами, например -p users=100000 -p friendsPerUser=200.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserStorageBenchmark {
+    /**
+     * Вид хранилища.
+     */
+    @Param({BenchmarkData.DB, BenchmarkData.IN_MEMORY})
+    private String storage;
+
+    /**
+     * Количество пользователей.
+     */
+    @Param({"10000"})
+    private int users;
+
+    /**
+     * Количество друзей одного пользователя.
+     */
+    @Param({"50"})
+    private int friendsPerUser;
+
+    private ConfigurableApplicationContext context;
+
+    private UserStorage userStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.start("userStorageBenchmark", storage);
+        BenchmarkData.seed(context, storage, users, 0, 0, friendsPerUser);
+        userStorage = context.getBean(UserStorage.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Все друзья случайного пользователя с их собственными друзьями.
+     */
+    @Benchmark
+    public List<User> getAllFriends() {
+        return userStorage.getAllFriends(randomUserId());
+    }
+
+    /**
+     * Общие друзья двух случайных пользователей.
+     */
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return userStorage.getCommonFriends(randomUserId(), randomUserId());
+    }
+
+    private long randomUserId() {
+        return 1 + ThreadLocalRandom.current().nextInt(users);
+    }
+}
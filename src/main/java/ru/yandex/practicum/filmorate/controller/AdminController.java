@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.monitoring.JfrRecorder;
+import ru.yandex.practicum.filmorate.monitoring.SlowQuery;
+import ru.yandex.practicum.filmorate.monitoring.SlowQueryLog;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST-контроллер служебных эндпоинтов для диагностики производительности.
+ * Эндпоинты отдают параметры SQL-запросов и запускают запись JFR, поэтому контроллер
+ * регистрируется только при filmorate.admin.enabled=true, который включен лишь в профиле dev.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/admin")
+@ConditionalOnProperty(name = "filmorate.admin.enabled", havingValue = "true")
+@Slf4j
+@RequiredArgsConstructor
+public class AdminController {
+    /**
+     * Поле журнала медленных запросов.
+     */
+    private final SlowQueryLog slowQueryLog;
+
+    /**
+     * Поле управления записью JFR.
+     */
+    private final JfrRecorder jfrRecorder;
+
+    /**
+     * Обработчик эндпоинта по методу GET для получения медленных запросов с их планами выполнения.
+     *
+     * @return Список медленных запросов в порядке первого появления.
+     */
+    @GetMapping("/slow-queries")
+    public List<SlowQuery> getSlowQueries() {
+        log.info("getSlowQueries.");
+        return slowQueryLog.getEntries();
+    }
+
+    /**
+     * Обработчик эндпоинта по методу POST для начала записи JFR.
+     *
+     * @param duration длительность записи в формате ISO-8601, по умолчанию максимальная.
+     * @return Длительность начатой записи.
+     */
+    @PostMapping("/jfr/start")
+    public Map<String, Duration> startJfr(@RequestParam(required = false) Duration duration) {
+        log.info("startJfr. duration = " + duration);
+        return Map.of("duration", jfrRecorder.start(duration));
+    }
+
+    /**
+     * Обработчик эндпоинта по методу POST для остановки записи JFR и выгрузки файла .jfr.
+     *
+     * @return Поток с содержимым записи.
+     */
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<StreamingResponseBody> stopJfr() {
+        log.info("stopJfr.");
+        Path file = jfrRecorder.stop();
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=filmorate.jfr")
+                .body(body);
+    }
+}
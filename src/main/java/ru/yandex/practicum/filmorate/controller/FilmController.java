@@ -1,8 +1,13 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,9 +17,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.List;
 
@@ -29,20 +37,78 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class FilmController {
+    /**
+     * Заголовок ответа с курсором (id последнего фильма) для запроса следующей страницы.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     /**
      * Поле сервиса для бизнес-логики по фильмам
      */
     private final FilmService filmService;
 
+    /**
+     * Поле сериализатора JSON для потоковой выгрузки
+     */
+    private final ObjectMapper objectMapper;
+
     /**
      * Обработчик эндпоинта по методу GET с выдачей всех указанных фильмов.
      *
+     * @param withLikes признак выдачи id проголосовавших пользователей (по умолчанию только их количество).
      * @return Коллекция фильмов.
      */
     @GetMapping
-    public Collection<Film> findAll() {
-        log.info("findAll.");
-        return filmService.findAll();
+    public Collection<Film> findAll(@RequestParam(defaultValue = "false") boolean withLikes) {
+        log.info("findAll. withLikes = " + withLikes);
+        return filmService.findAll(withLikes);
+    }
+
+    /**
+     * Обработчик эндпоинта по методу GET с постраничной выдачей фильмов по возрастанию id.
+     * Если страница заполнена полностью, в заголовке {@link FilmController#NEXT_CURSOR_HEADER}
+     * передается значение after для следующей страницы.
+     *
+     * @param limit     размер страницы.
+     * @param after     id последнего фильма предыдущей страницы (по умолчанию с начала).
+     * @param withLikes признак выдачи id проголосовавших пользователей (по умолчанию только их количество).
+     * @return Список фильмов страницы.
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<List<Film>> findPage(@RequestParam int limit,
+                                               @RequestParam(defaultValue = "0") long after,
+                                               @RequestParam(defaultValue = "false") boolean withLikes) {
+        log.info("findPage. limit = " + limit + ", after = " + after + ", withLikes = " + withLikes);
+        List<Film> films = filmService.findPage(after, limit, withLikes);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (films.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(films.getLast().getId()));
+        }
+        return response.body(films);
+    }
+
+    /**
+     * Обработчик эндпоинта по методу GET с потоковой выгрузкой всего каталога в формате NDJSON:
+     * по одному фильму в строке, каждый пишется в ответ сразу после чтения из БД.
+     *
+     * @return Поток фильмов.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        log.info("stream.");
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = outputStream -> filmService.streamAll(film -> {
+            try {
+                writer.writeValue(outputStream, film);
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     /**
@@ -80,28 +146,35 @@ public class FilmController {
 
     /**
      * Обработчик эндпоинта по методу PUT для добавления лайка.
+     * В режиме durable ответ отдается после фиксации лайка в БД, в режиме buffered -
+     * сразу после постановки в буфер, со статусом 202 и без тела.
      *
      * @param id     фильм, которому добавляется лайк.
      * @param userId пользователь, выставляющий лайк.
+     * @param ack    режим подтверждения (по умолчанию durable).
      * @return Список лайков фильма с id пользователей.
      */
     @PutMapping("/{id}/like/{userId}")
-    public List<Long> addLike(@PathVariable long id, @PathVariable long userId) {
-        log.info("Film addLike. id = " + id + ", userId = " + userId);
-        return filmService.addLike(id, userId);
+    public ResponseEntity<List<Long>> addLike(@PathVariable long id, @PathVariable long userId,
+                                              @RequestParam(defaultValue = FilmService.ACK_DURABLE) String ack) {
+        log.info("Film addLike. id = " + id + ", userId = " + userId + ", ack = " + ack);
+        return toLikesResponse(filmService.addLike(id, userId, ack));
     }
 
     /**
      * Обработчик эндпоинта по методу DELETE для удаления лайка.
+     * Режимы подтверждения те же, что и при добавлении лайка.
      *
      * @param id     фильм, у которого удаляется лайк.
      * @param userId пользователь, убирающий своё мнение.
+     * @param ack    режим подтверждения (по умолчанию durable).
      * @return Список лайков фильма с id пользователей.
      */
     @DeleteMapping("/{id}/like/{userId}")
-    public List<Long> deleteLike(@PathVariable long id, @PathVariable long userId) {
-        log.info("Film deleteLike. id = " + id + ", userId = " + userId);
-        return filmService.deleteLike(id, userId);
+    public ResponseEntity<List<Long>> deleteLike(@PathVariable long id, @PathVariable long userId,
+                                                 @RequestParam(defaultValue = FilmService.ACK_DURABLE) String ack) {
+        log.info("Film deleteLike. id = " + id + ", userId = " + userId + ", ack = " + ack);
+        return toLikesResponse(filmService.deleteLike(id, userId, ack));
     }
 
     /**
@@ -115,4 +188,27 @@ public class FilmController {
         log.info("getPopularFilms. count = " + count);
         return filmService.getPopularFilms(count);
     }
+
+    /**
+     * Обработчик эндпоинта по методу GET для получения фильмов, которые чаще всего лайкают вместе с заданным.
+     *
+     * @param id    фильм для обработки.
+     * @param count объем выборки (по умолчанию 10).
+     * @return Список фильмов.
+     */
+    @GetMapping("/{id}/similar")
+    public List<Film> getSimilarFilms(@PathVariable long id, @RequestParam(defaultValue = "10") int count) {
+        log.info("getSimilarFilms. id = " + id + ", count = " + count);
+        return filmService.getSimilarFilms(id, count);
+    }
+
+    /**
+     * Метод формирования ответа на изменение лайка.
+     *
+     * @param likes список лайков или null, если изменение только принято в буфер.
+     * @return Ответ 200 со списком лайков или 202 без тела.
+     */
+    private ResponseEntity<List<Long>> toLikesResponse(List<Long> likes) {
+        return likes == null ? ResponseEntity.accepted().build() : ResponseEntity.ok(likes);
+    }
 }
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -10,8 +11,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
@@ -28,11 +32,21 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class UserController {
+    /**
+     * Заголовок ответа с курсором (id последнего пользователя) для запроса следующей страницы.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     /**
      * Поле сервиса для бизнес-логики по пользователям
      */
     private final UserService userService;
 
+    /**
+     * Поле сервиса для бизнес-логики по фильмам
+     */
+    private final FilmService filmService;
+
     /**
      * Обработчик эндпоинта по методу POST для добавления пользователя.
      *
@@ -55,6 +69,28 @@ public class UserController {
         return userService.findAll();
     }
 
+    /**
+     * Обработчик эндпоинта по методу GET с постраничной выдачей пользователей по возрастанию id.
+     * Если страница заполнена полностью, в заголовке {@link UserController#NEXT_CURSOR_HEADER}
+     * передается значение after для следующей страницы.
+     *
+     * @param limit размер страницы.
+     * @param after id последнего пользователя предыдущей страницы (по умолчанию с начала).
+     * @return Список пользователей страницы.
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<List<User>> findPage(@RequestParam int limit,
+                                               @RequestParam(defaultValue = "0") long after) {
+        log.info("findPage. limit = " + limit + ", after = " + after);
+        List<User> users = userService.findPage(after, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(users.getLast().getId()));
+        }
+        return response.body(users);
+    }
+
     /**
      * Обработчик эндпоинта по методу GET для получения данных по конкретному пользователю.
      *
@@ -127,4 +163,46 @@ public class UserController {
         log.info("User getAllFriends. id = " + id);
         return userService.getCommonFriends(id, otherId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Обработчик эндпоинта по методу GET для получения количества друзей, общих у двух пользователей,
+     * без выдачи самих друзей.
+     *
+     * @param id      пользователь для обработки.
+     * @param otherId пользователь для обработки.
+     * @return Количество общих друзей.
+     */
+    @GetMapping("/{id}/friends/common/{otherId}/count")
+    public int countCommonFriends(@PathVariable long id, @PathVariable long otherId) {
+        log.info("User countCommonFriends. id = " + id + ", otherId = " + otherId);
+        return userService.countCommonFriends(id, otherId);
+    }
+
+    /**
+     * Обработчик эндпоинта по методу GET для подбора возможных друзей: друзей друзей пользователя
+     * по убыванию количества общих друзей.
+     *
+     * @param id    пользователь для обработки.
+     * @param limit максимальное количество предложений (по умолчанию 10).
+     * @return Список предлагаемых пользователей.
+     */
+    @GetMapping("/{id}/suggestions")
+    public List<User> getSuggestions(@PathVariable long id, @RequestParam(defaultValue = "10") int limit) {
+        log.info("User getSuggestions. id = " + id + ", limit = " + limit);
+        return userService.getSuggestions(id, limit);
+    }
+
+    /**
+     * Обработчик эндпоинта по методу GET для получения рекомендаций фильмов: фильмов, которые чаще всего
+     * лайкают вместе с понравившимися пользователю.
+     *
+     * @param id    пользователь для обработки.
+     * @param count объем выборки (по умолчанию 10).
+     * @return Список рекомендованных фильмов.
+     */
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable long id, @RequestParam(defaultValue = "10") int count) {
+        log.info("User getRecommendations. id = " + id + ", count = " + count);
+        return filmService.getRecommendations(id, count);
+    }
+}
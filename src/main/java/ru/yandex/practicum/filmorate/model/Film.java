@@ -13,7 +13,6 @@ import lombok.Setter;
 import lombok.ToString;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 
 /**
@@ -69,7 +68,12 @@ public class Film {
     /**
      * Поле оценок "нравится" с хранением id проголосовавших пользователей.
      */
-    private HashSet<Long> likesUserId;
+    private LikeSet likesUserId;
+
+    /**
+     * Поле количества оценок "нравится".
+     */
+    private Integer likesCount;
 
     /**
      * Поле жанров фильма
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Изменение лайка: пользователь ставит или убирает лайк фильму.
+ *
+ * @param filmId фильм.
+ * @param userId пользователь.
+ * @param added  true - лайк ставится, false - убирается.
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public record LikeChange(long filmId, long userId, boolean added) {
+}
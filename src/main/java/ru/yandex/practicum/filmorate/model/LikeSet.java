@@ -0,0 +1,234 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Компактное множество id пользователей, поставивших лайк.
+ * Id хранятся в отсортированном массиве int (4 байта на лайк вместо ~50 байт у HashSet&lt;Long&gt;),
+ * поиск - двоичный. Id, не помещающиеся в int, хранятся в отдельном отсортированном массиве long.
+ * Добавление по возрастанию id выполняется за O(1), вставка в середину - со сдвигом хвоста массива.
+ * Для JSON множество остается обычной коллекцией чисел. Не потокобезопасно, как и HashSet.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public class LikeSet extends AbstractSet<Long> {
+    private static final int[] EMPTY_IDS = {};
+    private static final long[] EMPTY_WIDE_IDS = {};
+    private static final int MIN_CAPACITY = 4;
+
+    /**
+     * Отсортированные id, помещающиеся в int. Заполнены первые size элементов.
+     */
+    private int[] ids = EMPTY_IDS;
+    private int size;
+
+    /**
+     * Отсортированные id, не помещающиеся в int. Заполнены первые wideSize элементов.
+     */
+    private long[] wideIds = EMPTY_WIDE_IDS;
+    private int wideSize;
+
+    /**
+     * Счетчик изменений для обнаружения изменения множества во время обхода.
+     */
+    private int modCount;
+
+    public LikeSet() {
+    }
+
+    public LikeSet(Collection<Long> userIds) {
+        if (userIds instanceof LikeSet other) {
+            ids = Arrays.copyOf(other.ids, other.size);
+            size = other.size;
+            wideIds = Arrays.copyOf(other.wideIds, other.wideSize);
+            wideSize = other.wideSize;
+            return;
+        }
+        userIds.forEach(this::add);
+        trimToSize();
+    }
+
+    /**
+     * Метод проверки наличия лайка пользователя.
+     *
+     * @param userId id пользователя.
+     * @return true, если лайк есть.
+     */
+    public boolean containsId(long userId) {
+        return fitsInt(userId) ? Arrays.binarySearch(ids, 0, size, (int) userId) >= 0
+                : Arrays.binarySearch(wideIds, 0, wideSize, userId) >= 0;
+    }
+
+    /**
+     * Метод добавления лайка пользователя.
+     *
+     * @param userId id пользователя.
+     * @return true, если лайка еще не было.
+     */
+    public boolean addId(long userId) {
+        boolean added = fitsInt(userId) ? insertInt((int) userId) : insertWide(userId);
+        if (added) {
+            modCount++;
+        }
+        return added;
+    }
+
+    /**
+     * Метод удаления лайка пользователя.
+     *
+     * @param userId id пользователя.
+     * @return true, если лайк был.
+     */
+    public boolean removeId(long userId) {
+        if (fitsInt(userId)) {
+            int index = Arrays.binarySearch(ids, 0, size, (int) userId);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        } else {
+            int index = Arrays.binarySearch(wideIds, 0, wideSize, userId);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(wideIds, index + 1, wideIds, index, wideSize - index - 1);
+            wideSize--;
+        }
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Метод освобождения неиспользуемого запаса массивов.
+     */
+    public void trimToSize() {
+        if (ids.length != size) {
+            ids = size == 0 ? EMPTY_IDS : Arrays.copyOf(ids, size);
+        }
+        if (wideIds.length != wideSize) {
+            wideIds = wideSize == 0 ? EMPTY_WIDE_IDS : Arrays.copyOf(wideIds, wideSize);
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long userId && containsId(userId);
+    }
+
+    @Override
+    public boolean add(Long userId) {
+        return addId(userId);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long userId && removeId(userId);
+    }
+
+    @Override
+    public void clear() {
+        ids = EMPTY_IDS;
+        size = 0;
+        wideIds = EMPTY_WIDE_IDS;
+        wideSize = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size + wideSize;
+    }
+
+    /**
+     * Обход по возрастанию id: сначала id из массива int, затем из массива long.
+     *
+     * @return Итератор id пользователей.
+     */
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<>() {
+            private int cursor;
+            private int lastReturned = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size();
+            }
+
+            @Override
+            public Long next() {
+                checkModCount();
+                if (cursor >= size()) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = cursor++;
+                return lastReturned < size ? ids[lastReturned] : wideIds[lastReturned - size];
+            }
+
+            @Override
+            public void remove() {
+                checkModCount();
+                if (lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                removeId(lastReturned < size ? ids[lastReturned] : wideIds[lastReturned - size]);
+                cursor = lastReturned;
+                lastReturned = -1;
+                expectedModCount = modCount;
+            }
+
+            private void checkModCount() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        };
+    }
+
+    private boolean insertInt(int userId) {
+        int index = size == 0 || ids[size - 1] < userId ? -(size + 1) : Arrays.binarySearch(ids, 0, size, userId);
+        if (index >= 0) {
+            return false;
+        }
+        index = -(index + 1);
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, grow(size));
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = userId;
+        size++;
+        return true;
+    }
+
+    private boolean insertWide(long userId) {
+        int index = wideSize == 0 || wideIds[wideSize - 1] < userId ? -(wideSize + 1)
+                : Arrays.binarySearch(wideIds, 0, wideSize, userId);
+        if (index >= 0) {
+            return false;
+        }
+        index = -(index + 1);
+        if (wideSize == wideIds.length) {
+            wideIds = Arrays.copyOf(wideIds, grow(wideSize));
+        }
+        System.arraycopy(wideIds, index, wideIds, index + 1, wideSize - index);
+        wideIds[index] = userId;
+        wideSize++;
+        return true;
+    }
+
+    private static int grow(int length) {
+        return Math.max(MIN_CAPACITY, length + (length >> 1));
+    }
+
+    private static boolean fitsInt(long userId) {
+        return (int) userId == userId;
+    }
+}
@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Фильтр учета памяти, выделенной потоком при обработке HTTP-запроса. Разница счетчика выделенных
+ * байт потока до и после цепочки фильтров пишется в распределение {@link #ALLOCATION_SUMMARY}
+ * с теми же тегами method, uri и status, что и у таймера http.server.requests, поэтому гистограммы
+ * памяти и задержек сопоставляются по маршруту. Запрос, выделивший больше порога, пишется в лог.
+ * Учитывается только поток обработки: память фоновых потоков и асинхронной записи тела ответа
+ * в счетчик не попадает. Если JVM не умеет считать выделения по потокам, фильтр выключается.
+ * На виртуальных потоках (профиль virtual) JDK 21 не ведет этот счетчик, и такие запросы не учитываются.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class AllocationFilter extends OncePerRequestFilter {
+    /**
+     * Распределение выделенной за запрос памяти в байтах.
+     */
+    public static final String ALLOCATION_SUMMARY = "filmorate.http.server.allocations";
+
+    private final MeterRegistry registry;
+    private final com.sun.management.ThreadMXBean threads;
+    private final boolean enabled;
+    private final long thresholdBytes;
+
+    /**
+     * Распределения по методу, маршруту и статусу, чтобы не искать их в реестре на каждом запросе.
+     */
+    private final Map<Key, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public AllocationFilter(MeterRegistry registry,
+                            @Value("${filmorate.allocation.enabled:true}") boolean enabled,
+                            @Value("${filmorate.allocation.threshold:16MB}") DataSize threshold) {
+        this.registry = registry;
+        this.thresholdBytes = threshold.toBytes();
+        if (enabled && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            this.threads = bean;
+            this.enabled = true;
+        } else {
+            if (enabled) {
+                log.warn("AllocationFilter. Thread allocated memory is not supported by the JVM.");
+            }
+            this.threads = null;
+            this.enabled = false;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long before = threads.getCurrentThreadAllocatedBytes();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long after = threads.getCurrentThreadAllocatedBytes();
+            if (before >= 0 && after >= before) {
+                record(request, response, after - before);
+            }
+        }
+    }
+
+    /**
+     * Метод записи выделенной за запрос памяти.
+     *
+     * @param request  обработанный запрос.
+     * @param response ответ на запрос.
+     * @param bytes    выделенные байты.
+     */
+    private void record(HttpServletRequest request, HttpServletResponse response, long bytes) {
+        Key key = new Key(request.getMethod(), route(request, response.getStatus()), response.getStatus());
+        summaries.computeIfAbsent(key, this::summary).record(bytes);
+        if (bytes > thresholdBytes) {
+            log.warn("Allocation-heavy request. method = " + request.getMethod() + ", uri = "
+                    + request.getRequestURI() + ", route = " + key.route() + ", bytes = " + bytes);
+        }
+    }
+
+    /**
+     * Метод получения маршрута запроса: шаблона пути обработчика, как в теге uri таймера http.server.requests.
+     * Для запросов без обработчика используется NOT_FOUND или UNKNOWN, чтобы не плодить теги по путям.
+     *
+     * @param request запрос.
+     * @param status  статус ответа.
+     * @return Маршрут.
+     */
+    private static String route(HttpServletRequest request, int status) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return pattern.toString();
+        }
+        return status == HttpServletResponse.SC_NOT_FOUND ? "NOT_FOUND" : "UNKNOWN";
+    }
+
+    private DistributionSummary summary(Key key) {
+        return DistributionSummary.builder(ALLOCATION_SUMMARY)
+                .description("Память, выделенная потоком при обработке HTTP-запроса")
+                .baseUnit("bytes")
+                .tag("method", key.method())
+                .tag("uri", key.route())
+                .tag("status", String.valueOf(key.status()))
+                .register(registry);
+    }
+
+    /**
+     * Ключ распределения.
+     *
+     * @param method HTTP-метод.
+     * @param route  маршрут.
+     * @param status статус ответа.
+     */
+    private record Key(String method, String route, int status) {
+    }
+}
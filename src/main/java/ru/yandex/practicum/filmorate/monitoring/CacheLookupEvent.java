@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR обращения к кэшу. При выключенной записи событие не заполняется и не сохраняется.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Name("filmorate.CacheLookup")
+@Label("Cache Lookup")
+@Category({"Filmorate", "Cache"})
+@Description("Обращение к кэшу или фильтру в памяти")
+@StackTrace(false)
+public class CacheLookupEvent extends Event {
+    @Label("Cache")
+    public String cache;
+
+    @Label("Key")
+    public long key;
+
+    @Label("Hit")
+    public boolean hit;
+
+    /**
+     * Метод записи обращения к кэшу, если событие включено в текущей записи.
+     *
+     * @param cache имя кэша.
+     * @param key   ключ обращения.
+     * @param hit   признак попадания.
+     */
+    public static void emit(String cache, long key, boolean hit) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        if (event.shouldCommit()) {
+            event.cache = cache;
+            event.key = key;
+            event.hit = hit;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR обработки HTTP-запроса. Длительность события - время обработки в цепочке фильтров.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Name("filmorate.HttpRequest")
+@Label("HTTP Request")
+@Category({"Filmorate", "HTTP"})
+@Description("Обработка HTTP-запроса")
+@StackTrace(false)
+public class HttpRequestEvent extends Event {
+    @Label("Method")
+    public String method;
+
+    @Label("URI")
+    public String uri;
+
+    @Label("Status")
+    public int status;
+
+    @Label("DB Statements")
+    @Description("Количество запросов к БД в потоке обработки")
+    public int statements;
+
+    @Label("DB Rows")
+    @Description("Количество прочитанных из БД строк в потоке обработки")
+    public long rows;
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Фильтр записи событий JFR {@link HttpRequestEvent}. Пока событие не включено в записи,
+ * фильтр только создает пустое событие. Количество запросов к БД и строк берется из счетчиков
+ * {@link StatementStatsFilter}, если они включены, иначе остается нулевым.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class HttpRequestEventFilter extends OncePerRequestFilter {
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpRequestEvent event = new HttpRequestEvent();
+        event.begin();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = request.getMethod();
+                event.uri = request.getRequestURI();
+                event.status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+                StatementStats stats = StatementStats.current();
+                if (stats != null) {
+                    event.statements = stats.getStatements();
+                    event.rows = stats.getRows();
+                }
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Источник данных, замеряющий время выполнения каждого запроса. Соединения и запросы оборачиваются
+ * динамическими прокси: значения позиционных параметров запоминаются при их установке,
+ * а вызовы execute* замеряются и передаются в {@link SlowQueryLog}. Время чтения результата
+ * после executeQuery не учитывается. Если в потоке идет подсчет {@link StatementStats},
+ * каждый запрос и каждая прочитанная строка результата учитываются в нем.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+    private final SlowQueryLog slowQueryLog;
+
+    public InstrumentedDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+        super(target);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Обработчик вызовов соединения: оборачивает создаваемые запросы.
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(connection, method, args);
+            Class<?> type = switch (method.getName()) {
+                case "createStatement" -> Statement.class;
+                case "prepareStatement" -> PreparedStatement.class;
+                case "prepareCall" -> CallableStatement.class;
+                default -> null;
+            };
+            if (type == null) {
+                return result;
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler((Statement) result, sql));
+        }
+    }
+
+    /**
+     * Обработчик вызовов запроса: запоминает параметры и замеряет выполнение.
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private final List<Object> parameters = new ArrayList<>();
+
+        private StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                setParameter(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            }
+            if (name.equals("getResultSet")) {
+                return countRows((ResultSet) InstrumentedDataSource.invoke(statement, method, args));
+            }
+            if (!name.startsWith("execute")) {
+                return InstrumentedDataSource.invoke(statement, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            StatementStats stats = StatementStats.current();
+            if (stats != null && sql != null) {
+                stats.statement(sql);
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = InstrumentedDataSource.invoke(statement, method, args);
+            } finally {
+                if (sql != null && slowQueryLog.isEnabled()) {
+                    slowQueryLog.executed(obtainTargetDataSource(), sql, parameters, System.nanoTime() - start);
+                }
+            }
+            return result instanceof ResultSet resultSet ? countRows(resultSet) : result;
+        }
+
+        /**
+         * Метод обертки результата для подсчета прочитанных строк, если в потоке идет подсчет.
+         *
+         * @param resultSet результат запроса.
+         * @return Результат запроса, возможно обернутый.
+         */
+        private ResultSet countRows(ResultSet resultSet) {
+            StatementStats stats = StatementStats.current();
+            if (stats == null || resultSet == null) {
+                return resultSet;
+            }
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        Object result = InstrumentedDataSource.invoke(resultSet, method, args);
+                        if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                            stats.row();
+                        }
+                        return result;
+                    });
+        }
+
+        private void setParameter(int index, Object value) {
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+    }
+}
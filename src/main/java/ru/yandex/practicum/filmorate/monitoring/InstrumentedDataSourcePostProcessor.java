@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Обертка источника данных приложения в {@link InstrumentedDataSource}, если включен журнал медленных запросов
+ * или подсчет запросов {@link StatementStats}.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+public class InstrumentedDataSourcePostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<SlowQueryLog> slowQueryLog;
+    private final boolean statementStatsEnabled;
+
+    /**
+     * Настройки читаются из окружения напрямую: постпроцессор создается раньше, чем подставляются значения @Value.
+     */
+    public InstrumentedDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog, Environment environment) {
+        this.slowQueryLog = slowQueryLog;
+        this.statementStatsEnabled = environment.getProperty("filmorate.statement-stats.enabled", Boolean.class, true);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+            SlowQueryLog log = slowQueryLog.getObject();
+            if (log.isEnabled() || statementStatsEnabled) {
+                return new InstrumentedDataSource(dataSource, log);
+            }
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Управление записью Java Flight Recorder по запросу администратора. Одновременно идет не больше одной записи.
+ * Запись ограничена по времени и размеру: по истечении времени JFR останавливает ее сам, а данные
+ * хранятся до вызова {@link #stop()}. В запись входят события стандартной конфигурации default
+ * и события приложения {@link StorageCallEvent}, {@link CacheLookupEvent} и {@link HttpRequestEvent}.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class JfrRecorder {
+    private static final List<Class<? extends Event>> EVENTS = List.of(StorageCallEvent.class,
+            CacheLookupEvent.class, HttpRequestEvent.class);
+
+    private final Duration maxDuration;
+    private final long maxSize;
+    private final Duration threshold;
+
+    /**
+     * Текущая запись или null, если запись не начата или уже выгружена.
+     */
+    private Recording recording;
+
+    /**
+     * Блокировка записи.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    public JfrRecorder(@Value("${filmorate.jfr.max-duration:PT10M}") Duration maxDuration,
+                       @Value("${filmorate.jfr.max-size:104857600}") long maxSize,
+                       @Value("${filmorate.jfr.threshold:PT0S}") Duration threshold) {
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Метод начала записи. Невыгруженная остановленная запись отбрасывается.
+     *
+     * @param duration длительность записи или null для максимальной.
+     * @return Длительность начатой записи.
+     */
+    public Duration start(Duration duration) {
+        lock.lock();
+        try {
+            Duration limit = duration == null ? maxDuration : duration;
+            if (limit.isNegative() || limit.isZero() || limit.compareTo(maxDuration) > 0) {
+                throw new ValidationException("Длительность записи JFR должна быть от 0 до " + maxDuration + ".");
+            }
+            if (recording != null && recording.getState() == RecordingState.RUNNING) {
+                throw new ValidationException("Запись JFR уже идет.");
+            }
+            close();
+
+            Recording started;
+            try {
+                started = new Recording(Configuration.getConfiguration("default"));
+            } catch (IOException | ParseException e) {
+                throw new InternalServerException("Не удалось загрузить конфигурацию JFR: " + e.getMessage());
+            }
+            EVENTS.forEach(event -> started.enable(event).withThreshold(threshold));
+            started.setName("filmorate");
+            started.setToDisk(true);
+            started.setMaxSize(maxSize);
+            started.setDuration(limit);
+            started.start();
+            recording = started;
+            log.info("JFR recording started. duration = " + limit + ", maxSize = " + maxSize);
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Метод остановки записи и выгрузки ее во временный файл. Файл удаляет вызывающий,
+     * при ошибке выгрузки файл удаляется сразу.
+     *
+     * @return Путь к файлу записи.
+     */
+    public Path stop() {
+        lock.lock();
+        try {
+            if (recording == null) {
+                throw new NotFoundException("Запись JFR не начата.");
+            }
+            try {
+                if (recording.getState() == RecordingState.RUNNING) {
+                    recording.stop();
+                }
+                Path file = Files.createTempFile("filmorate", ".jfr");
+                try {
+                    recording.dump(file);
+                    log.info("JFR recording stopped. size = " + Files.size(file));
+                    return file;
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(file);
+                    throw e;
+                }
+            } catch (IOException e) {
+                throw new InternalServerException("Не удалось выгрузить запись JFR: " + e.getMessage());
+            } finally {
+                close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            if (recording != null) {
+                recording.close();
+                recording = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
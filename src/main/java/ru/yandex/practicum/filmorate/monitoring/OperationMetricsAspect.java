@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Аспект замера времени операций хранилищ и сервисов. Каждый вызов метода интерфейсов
+ * FilmStorage, UserStorage, GenreStorage, RatingStorage и каждый публичный метод сервисов
+ * записывается в таймер с тегами class (класс реализации), method и exception (none при успехе),
+ * а при включенной записи JFR - еще и в событие {@link StorageCallEvent}.
+ * Вызовы внутри одного бина не замеряются: аспект видит только вызовы через прокси.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class OperationMetricsAspect {
+    /**
+     * Таймер операций хранилищ.
+     */
+    public static final String STORAGE_TIMER = "filmorate.storage.operations";
+
+    /**
+     * Таймер операций сервисов.
+     */
+    public static final String SERVICE_TIMER = "filmorate.service.operations";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry registry;
+
+    /**
+     * Таймеры успешных вызовов по таймеру, классу и методу, чтобы не искать их в реестре на каждом вызове.
+     */
+    private final Map<Key, Timer> successTimers = new ConcurrentHashMap<>();
+
+    @Around("execution(* ru.yandex.practicum.filmorate.storage.FilmStorage.*(..)) || "
+            + "execution(* ru.yandex.practicum.filmorate.storage.UserStorage.*(..)) || "
+            + "execution(* ru.yandex.practicum.filmorate.storage.GenreStorage.*(..)) || "
+            + "execution(* ru.yandex.practicum.filmorate.storage.RatingStorage.*(..))")
+    public Object timeStorage(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(STORAGE_TIMER, "storage", joinPoint);
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.service..*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, "service", joinPoint);
+    }
+
+    /**
+     * Метод выполнения вызова с записью времени в таймер и в событие JFR.
+     *
+     * @param name      имя таймера.
+     * @param layer     слой для события JFR.
+     * @param joinPoint перехваченный вызов.
+     * @return Результат вызова.
+     */
+    private Object time(String name, String layer, ProceedingJoinPoint joinPoint) throws Throwable {
+        Key key = new Key(name, AopUtils.getTargetClass(joinPoint.getTarget()),
+                ((MethodSignature) joinPoint.getSignature()).getMethod());
+        StorageCallEvent event = new StorageCallEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            successTimers.computeIfAbsent(key, k -> timer(k, NO_EXCEPTION)).record(System.nanoTime() - start,
+                    TimeUnit.NANOSECONDS);
+            commit(event, layer, key, joinPoint.getArgs(), rows(result), NO_EXCEPTION);
+            return result;
+        } catch (Throwable e) {
+            timer(key, e.getClass().getSimpleName()).record(System.nanoTime() - start,
+                    TimeUnit.NANOSECONDS);
+            commit(event, layer, key, joinPoint.getArgs(), 0, e.getClass().getSimpleName());
+            throw e;
+        }
+    }
+
+    /**
+     * Метод завершения события вызова. Поля заполняются только если событие будет записано.
+     * Идентификатором сущности считается первый целочисленный аргумент вызова.
+     *
+     * @param event     начатое событие.
+     * @param layer     слой: storage или service.
+     * @param key       ключ таймера с классом и методом.
+     * @param args      аргументы вызова.
+     * @param rows      количество записей в результате.
+     * @param exception простое имя исключения или none.
+     */
+    private static void commit(StorageCallEvent event, String layer, Key key, Object[] args, int rows,
+                               String exception) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.layer = layer;
+        event.type = key.type().getSimpleName();
+        event.method = key.method().getName();
+        event.entityId = args.length > 0 && (args[0] instanceof Long || args[0] instanceof Integer)
+                ? ((Number) args[0]).longValue() : 0;
+        event.rows = rows;
+        event.exception = exception;
+        event.commit();
+    }
+
+    /**
+     * Метод подсчета записей в результате вызова: размер коллекции, 0 для пустого результата, иначе 1.
+     *
+     * @param result результат вызова.
+     * @return Количество записей.
+     */
+    private static int rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return result == null ? 0 : 1;
+    }
+
+    private Timer timer(Key key, String exception) {
+        return Timer.builder(key.name())
+                .description(STORAGE_TIMER.equals(key.name())
+                        ? "Время операций хранилищ" : "Время операций сервисов")
+                .tag("class", key.type().getSimpleName())
+                .tag("method", key.method().getName())
+                .tag("exception", exception)
+                .register(registry);
+    }
+
+    /**
+     * Ключ таймера успешных вызовов.
+     *
+     * @param name   имя таймера.
+     * @param type   класс реализации.
+     * @param method вызванный метод.
+     */
+    private record Key(String name, Class<?> type, Method method) {
+    }
+}
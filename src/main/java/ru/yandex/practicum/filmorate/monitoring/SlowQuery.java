@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Медленный запрос в кольце {@link SlowQueryLog}.
+ *
+ * @param sql               текст запроса, как он выполнялся в JDBC.
+ * @param parameters        параметры первого медленного выполнения: по именам или по позициям, начиная с 1.
+ * @param caller            метод хранилища, выполнивший запрос.
+ * @param count             количество медленных выполнений, пока запрос находится в кольце.
+ * @param lastElapsedMillis время последнего медленного выполнения, мс.
+ * @param maxElapsedMillis  наибольшее время выполнения, мс.
+ * @param firstSeen         момент первого медленного выполнения.
+ * @param plan              план выполнения или null, пока он не снят.
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public record SlowQuery(String sql, Map<String, Object> parameters, String caller, long count,
+                        double lastElapsedMillis, double maxElapsedMillis, Instant firstSeen, String plan) {
+    /**
+     * Метод учета повторного медленного выполнения.
+     *
+     * @param elapsedMillis время выполнения, мс.
+     * @return Запрос с обновленной статистикой.
+     */
+    public SlowQuery withOccurrence(double elapsedMillis) {
+        return new SlowQuery(sql, parameters, caller, count + 1, elapsedMillis,
+                Math.max(maxElapsedMillis, elapsedMillis), firstSeen, plan);
+    }
+
+    /**
+     * Метод добавления плана выполнения.
+     *
+     * @param plan план выполнения.
+     * @return Запрос с планом.
+     */
+    public SlowQuery withPlan(String plan) {
+        return new SlowQuery(sql, parameters, caller, count, lastElapsedMillis, maxElapsedMillis, firstSeen, plan);
+    }
+}
@@ -0,0 +1,245 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Журнал медленных запросов. Запрос дольше порога пишется в лог с параметрами и методом хранилища,
+ * который его выполнил, а для каждого различного текста запроса один раз снимается план выполнения:
+ * EXPLAIN ANALYZE для SELECT и EXPLAIN для изменяющих запросов, которые EXPLAIN ANALYZE в H2 выполнил бы повторно.
+ * Планы снимаются в отдельном потоке на собственном соединении и хранятся в ограниченном кольце:
+ * при переполнении вытесняется самый старый запрос, и при повторной медленной работе его план снимется заново.
+ * Если очередь снятия планов заполнена, запрос попадает в кольцо без плана.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class SlowQueryLog {
+    /**
+     * Пакет хранилищ, по которому в стеке ищется метод, выполнивший запрос.
+     */
+    private static final String STORAGE_PACKAGE = "ru.yandex.practicum.filmorate.storage.";
+
+    /**
+     * Общий базовый класс хранилищ, который пропускается при поиске метода.
+     */
+    private static final String BASE_REPOSITORY = STORAGE_PACKAGE + "BaseRepository";
+
+    private static final int MAX_PENDING_PLANS = 16;
+
+    /**
+     * Параметры последнего запроса с именованными параметрами в текущем потоке.
+     */
+    private final ThreadLocal<NamedStatement> namedStatement = new ThreadLocal<>();
+
+    /**
+     * Кольцо медленных запросов по тексту запроса в порядке первого появления.
+     */
+    private final Map<String, SlowQuery> ring;
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final Executor planExecutor;
+
+    @Autowired
+    public SlowQueryLog(@Value("${filmorate.slow-query.enabled:true}") boolean enabled,
+                        @Value("${filmorate.slow-query.threshold:PT0.05S}") Duration threshold,
+                        @Value("${filmorate.slow-query.capacity:100}") int capacity) {
+        this(enabled, threshold, capacity, new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING_PLANS), runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    SlowQueryLog(boolean enabled, Duration threshold, int capacity, Executor planExecutor) {
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+        this.planExecutor = planExecutor;
+        this.ring = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SlowQuery> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Метод запоминания именованных параметров запроса, который сейчас будет выполнен в текущем потоке.
+     *
+     * @param sql        текст запроса с позиционными параметрами, как он уйдет в JDBC.
+     * @param namedSql   исходный текст запроса с именованными параметрами.
+     * @param parameters значения именованных параметров.
+     */
+    public void named(String sql, String namedSql, Map<String, Object> parameters) {
+        namedStatement.set(new NamedStatement(sql, namedSql, parameters));
+    }
+
+    /**
+     * Метод учета выполненного запроса. Запрос быстрее порога только сбрасывает запомненные параметры.
+     *
+     * @param target     исходный источник данных для снятия плана.
+     * @param sql        текст запроса.
+     * @param parameters позиционные параметры запроса.
+     * @param nanos      время выполнения.
+     */
+    public void executed(DataSource target, String sql, List<Object> parameters, long nanos) {
+        NamedStatement named = namedStatement.get();
+        namedStatement.remove();
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        Map<String, Object> shown = named != null && named.sql().equals(sql)
+                ? named.parameters() : positional(parameters);
+        String caller = findCaller();
+        double elapsedMillis = nanos / 1e6;
+        log.warn("Slow query. elapsedMillis = " + elapsedMillis + ", caller = " + caller + ", sql = "
+                + (named != null && named.sql().equals(sql) ? named.namedSql() : sql) + ", parameters = " + shown);
+
+        synchronized (ring) {
+            SlowQuery known = ring.get(sql);
+            if (known != null) {
+                ring.put(sql, known.withOccurrence(elapsedMillis));
+                return;
+            }
+            ring.put(sql, new SlowQuery(sql, shown, caller, 1, elapsedMillis, elapsedMillis, Instant.now(), null));
+        }
+        List<Object> planParameters = new ArrayList<>(parameters);
+        try {
+            planExecutor.execute(() -> capturePlan(target, sql, planParameters));
+        } catch (RejectedExecutionException e) {
+            log.debug("Slow query. Plan capture skipped, sql = " + sql);
+        }
+    }
+
+    /**
+     * Метод получения медленных запросов кольца.
+     *
+     * @return Список медленных запросов в порядке первого появления.
+     */
+    public List<SlowQuery> getEntries() {
+        synchronized (ring) {
+            return new ArrayList<>(ring.values());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (planExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Метод снятия плана запроса. Если запрос уже вытеснен из кольца, план отбрасывается.
+     *
+     * @param target     источник данных без замера запросов.
+     * @param sql        текст запроса.
+     * @param parameters позиционные параметры запроса.
+     */
+    private void capturePlan(DataSource target, String sql, List<Object> parameters) {
+        String plan;
+        try {
+            plan = explain(target, sql, parameters);
+        } catch (SQLException | RuntimeException e) {
+            plan = "EXPLAIN failed: " + e.getMessage();
+        }
+        synchronized (ring) {
+            SlowQuery query = ring.get(sql);
+            if (query != null) {
+                ring.replace(sql, query.withPlan(plan));
+            }
+        }
+    }
+
+    private String explain(DataSource target, String sql, List<Object> parameters) throws SQLException {
+        String statement = sql.strip().toUpperCase(Locale.ROOT);
+        String prefix;
+        if (statement.startsWith("SELECT") || statement.startsWith("WITH")) {
+            prefix = "EXPLAIN ANALYZE ";
+        } else if (statement.startsWith("INSERT") || statement.startsWith("UPDATE")
+                || statement.startsWith("DELETE") || statement.startsWith("MERGE")) {
+            prefix = "EXPLAIN ";
+        } else {
+            return "EXPLAIN is not supported for this statement.";
+        }
+        try (Connection connection = target.getConnection();
+             PreparedStatement explain = connection.prepareStatement(prefix + sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                explain.setObject(i + 1, parameters.get(i));
+            }
+            StringJoiner plan = new StringJoiner("\n");
+            try (ResultSet rs = explain.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString(1));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private static Map<String, Object> positional(List<Object> parameters) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < parameters.size(); i++) {
+            result.put(String.valueOf(i + 1), parameters.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Метод поиска в стеке первого метода хранилища, минуя BaseRepository.
+     * Стек обходится только для медленных запросов.
+     *
+     * @return Класс и метод хранилища или "unknown".
+     */
+    private static String findCaller() {
+        Optional<String> caller = StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(STORAGE_PACKAGE)
+                        && !frame.getClassName().equals(BASE_REPOSITORY))
+                .map(frame -> frame.getClassName().substring(STORAGE_PACKAGE.length()) + "."
+                        + frame.getMethodName())
+                .findFirst());
+        return caller.orElse("unknown");
+    }
+
+    /**
+     * Запрос с именованными параметрами, выполняемый в текущем потоке.
+     *
+     * @param sql        текст с позиционными параметрами.
+     * @param namedSql   исходный текст с именованными параметрами.
+     * @param parameters значения параметров по именам.
+     */
+    private record NamedStatement(String sql, String namedSql, Map<String, Object> parameters) {
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Шаблон запросов с именованными параметрами, который перед выполнением запроса передает
+ * в {@link SlowQueryLog} исходный текст и значения параметров по именам, чтобы медленный запрос
+ * попал в лог в том виде, в каком он написан в хранилище. Заменяет шаблон из автоконфигурации.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+public class SlowQueryNamedParameterJdbcTemplate extends NamedParameterJdbcTemplate {
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryNamedParameterJdbcTemplate(JdbcTemplate jdbcTemplate, SlowQueryLog slowQueryLog) {
+        super(jdbcTemplate);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    protected PreparedStatementCreator getPreparedStatementCreator(String sql, SqlParameterSource paramSource,
+                                                                   Consumer<PreparedStatementCreatorFactory> customizer) {
+        PreparedStatementCreator creator = super.getPreparedStatementCreator(sql, paramSource, customizer);
+        if (slowQueryLog.isEnabled() && creator instanceof SqlProvider provider) {
+            slowQueryLog.named(provider.getSql(), sql, values(paramSource));
+        }
+        return creator;
+    }
+
+    private static Map<String, Object> values(SqlParameterSource paramSource) {
+        if (paramSource instanceof MapSqlParameterSource map) {
+            return map.getValues();
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        String[] names = paramSource.getParameterNames();
+        if (names != null) {
+            for (String name : names) {
+                values.put(name, paramSource.getValue(name));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Счетчики запросов к БД и прочитанных строк в текущем потоке: в рамках HTTP-запроса
+ * или блока кода в тесте. Считаются только запросы, выполненные в этом же потоке,
+ * поэтому работа фоновых потоков (буфер лайков, перестройка индексов) в счетчики не попадает.
+ * Счетчики вкладываются: внутренний блок считает свои запросы, не затрагивая внешний.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public final class StatementStats {
+    private static final ThreadLocal<StatementStats> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Список позиционных параметров IN (?, ?, ...), который сворачивается в один параметр при сравнении форм запросов.
+     */
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private final StatementStats parent;
+
+    /**
+     * Количество выполнений по тексту запроса.
+     */
+    private final Map<String, Integer> executions = new HashMap<>();
+
+    private int statements;
+    private long rows;
+
+    private StatementStats(StatementStats parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Метод начала подсчета в текущем потоке.
+     *
+     * @return Счетчики, которые нужно закрыть методом {@link #stop()}.
+     */
+    public static StatementStats start() {
+        StatementStats stats = new StatementStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * Метод получения счетчиков текущего потока.
+     *
+     * @return Счетчики или null, если подсчет не начат.
+     */
+    public static StatementStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Метод окончания подсчета: текущими снова становятся внешние счетчики.
+     */
+    public void stop() {
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+
+    /**
+     * Метод учета выполненного запроса.
+     *
+     * @param sql текст запроса.
+     */
+    public void statement(String sql) {
+        statements++;
+        executions.merge(sql, 1, Integer::sum);
+    }
+
+    /**
+     * Метод учета прочитанной строки результата.
+     */
+    public void row() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Метод получения форм запросов, выполненных не меньше заданного количества раз.
+     * Запросы, отличающиеся только длиной списка IN, считаются одной формой.
+     *
+     * @param threshold минимальное количество выполнений.
+     * @return Количество выполнений по форме запроса.
+     */
+    public Map<String, Integer> getRepeated(int threshold) {
+        Map<String, Integer> shapes = new HashMap<>();
+        executions.forEach((sql, count) -> shapes.merge(PARAMETER_LIST.matcher(sql).replaceAll("(?)"), count,
+                Integer::sum));
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        shapes.forEach((shape, count) -> {
+            if (count >= threshold) {
+                repeated.put(shape, count);
+            }
+        });
+        return repeated;
+    }
+}
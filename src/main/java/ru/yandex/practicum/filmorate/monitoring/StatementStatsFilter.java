@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Фильтр подсчета запросов к БД и прочитанных строк в рамках HTTP-запроса.
+ * Счетчики возвращаются в заголовках {@link #STATEMENTS_HEADER} и {@link #ROWS_HEADER}, если они включены
+ * (по умолчанию выключены, включаются в профиле dev). Заголовки ставятся перед началом записи тела ответа,
+ * поэтому у потоковых и асинхронных ответов они отражают только запросы, выполненные до первой записи
+ * или до выхода из обработчика.
+ * Если одна форма запроса выполнилась за HTTP-запрос не меньше repeat-threshold раз, пишется предупреждение
+ * о возможной проблеме N+1. Фильтр стоит раньше {@link HttpRequestEventFilter}, чтобы событие JFR
+ * видело счетчики запроса.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@Slf4j
+public class StatementStatsFilter extends OncePerRequestFilter {
+    /**
+     * Заголовок количества запросов к БД.
+     */
+    public static final String STATEMENTS_HEADER = "X-Db-Statements";
+
+    /**
+     * Заголовок количества прочитанных из БД строк.
+     */
+    public static final String ROWS_HEADER = "X-Db-Rows";
+
+    private final boolean enabled;
+    private final boolean headers;
+    private final int repeatThreshold;
+
+    public StatementStatsFilter(@Value("${filmorate.statement-stats.enabled:true}") boolean enabled,
+                                @Value("${filmorate.statement-stats.headers:false}") boolean headers,
+                                @Value("${filmorate.statement-stats.repeat-threshold:5}") int repeatThreshold) {
+        this.enabled = enabled;
+        this.headers = headers;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StatementStats stats = StatementStats.start();
+        StatsResponse statsResponse = new StatsResponse(response, stats);
+        try {
+            chain.doFilter(request, headers ? statsResponse : response);
+        } finally {
+            stats.stop();
+            if (headers) {
+                statsResponse.writeHeaders();
+            }
+            stats.getRepeated(repeatThreshold).forEach((sql, count) ->
+                    log.warn("Repeated statement. method = " + request.getMethod() + ", uri = "
+                            + request.getRequestURI() + ", count = " + count + ", sql = " + sql));
+        }
+    }
+
+    /**
+     * Ответ, в который заголовки со счетчиками записываются перед первой записью тела
+     * или по окончании запроса, если тела нет.
+     */
+    private static final class StatsResponse extends HttpServletResponseWrapper {
+        private final StatementStats stats;
+        private boolean written;
+
+        private StatsResponse(HttpServletResponse response, StatementStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        private void writeHeaders() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            setHeader(STATEMENTS_HEADER, String.valueOf(stats.getStatements()));
+            setHeader(ROWS_HEADER, String.valueOf(stats.getRows()));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR вызова метода хранилища или сервиса. Длительность события - время вызова.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Name("filmorate.StorageCall")
+@Label("Storage Call")
+@Category({"Filmorate", "Storage"})
+@Description("Вызов метода хранилища или сервиса")
+@StackTrace(false)
+public class StorageCallEvent extends Event {
+    @Label("Layer")
+    @Description("Слой: storage или service")
+    public String layer;
+
+    @Label("Class")
+    public String type;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Entity Id")
+    @Description("Первый числовой аргумент вызова или 0")
+    public long entityId;
+
+    @Label("Rows")
+    @Description("Количество возвращенных записей")
+    public int rows;
+
+    @Label("Exception")
+    public String exception;
+}
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Учет закреплений виртуальных потоков за потоком-носителем. Виртуальный поток, заблокированный
+ * внутри synchronized или нативного вызова, не освобождает носитель, и при нескольких носителях
+ * это быстро останавливает обработку запросов. Поэтому долгие участки с чтением из БД или записью файлов
+ * в приложении защищаются ReentrantLock, а не synchronized. Закрепления дольше порога приходят событием JFR
+ * jdk.VirtualThreadPinned и пишутся в таймер filmorate.virtual.pinned с тегом frame - первым
+ * методом приложения в стеке, а если его нет - верхним методом стека. Монитор включается в профиле virtual.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class VirtualThreadPinningMonitor {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final String APPLICATION_PACKAGE = "ru.yandex.practicum.filmorate.";
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final Duration threshold;
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry registry,
+                                       @Value("${filmorate.pinning-monitor.enabled:false}") boolean enabled,
+                                       @Value("${filmorate.pinning-monitor.threshold:PT0.02S}") Duration threshold) {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::pinned);
+        stream.startAsync();
+        log.info("VirtualThreadPinningMonitor started. threshold = " + threshold);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Метод учета одного закрепления.
+     *
+     * @param event событие jdk.VirtualThreadPinned.
+     */
+    private void pinned(RecordedEvent event) {
+        String frame = frame(event);
+        Timer.builder("filmorate.virtual.pinned")
+                .description("Время закрепления виртуальных потоков за носителем")
+                .tag("frame", frame)
+                .register(registry)
+                .record(event.getDuration());
+        log.warn("Virtual thread pinned. durationMillis = " + event.getDuration().toMillis() + ", frame = " + frame);
+    }
+
+    private static String frame(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        RecordedFrame frame = frames.stream()
+                .filter(candidate -> candidate.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+                .findFirst()
+                .orElse(frames.getFirst());
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+}
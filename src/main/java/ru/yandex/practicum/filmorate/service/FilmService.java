@@ -7,16 +7,18 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.storage.CoLikeIndex;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
-import ru.yandex.practicum.filmorate.storage.GenreStorage;
-import ru.yandex.practicum.filmorate.storage.RatingStorage;
+import ru.yandex.practicum.filmorate.storage.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Сервис работы с фильмами {@link Film}
@@ -33,20 +35,40 @@ public class FilmService {
      */
     public static final LocalDate DATE_OF_CINEMA = LocalDate.of(1895, 12, 28);
 
+    /**
+     * Константа максимального размера страницы при постраничной выдаче.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Константа максимального объема выборки похожих фильмов и рекомендаций: длина хранимого списка соседей.
+     */
+    public static final int MAX_SIMILAR = CoLikeIndex.TOP_K;
+
+    /**
+     * Режим подтверждения лайка после фиксации в БД.
+     */
+    public static final String ACK_DURABLE = "durable";
+
+    /**
+     * Режим подтверждения лайка сразу после постановки в буфер.
+     */
+    public static final String ACK_BUFFERED = "buffered";
+
     /**
      * Поле репозитория фильмов.
      */
     private final FilmStorage filmStorage;
 
     /**
-     * Поле репозитория жанров.
+     * Поле кэша справочников жанров и рейтингов.
      */
-    private final GenreStorage genreStorage;
+    private final ReferenceDataCache referenceDataCache;
 
     /**
-     * Поле репозитория рейтингов.
+     * Поле буфера отложенной записи лайков.
      */
-    private final RatingStorage ratingStorage;
+    private final LikeWriteBuffer likeWriteBuffer;
 
     /**
      * Поле сервиса по работе с пользователями.
@@ -56,11 +78,39 @@ public class FilmService {
     /**
      * Метод получения всех имеющихся в коллекции фильмов.
      *
+     * @param withLikes признак загрузки id проголосовавших пользователей, иначе только их количества.
      * @return Коллекция фильмов.
      */
-    public Collection<Film> findAll() {
-        log.info("findAll.");
-        return filmStorage.findAll();
+    public Collection<Film> findAll(boolean withLikes) {
+        log.info("findAll. withLikes = " + withLikes);
+        return filmStorage.findAll(withLikes);
+    }
+
+    /**
+     * Метод получения страницы фильмов по возрастанию id.
+     *
+     * @param afterId   id последнего фильма предыдущей страницы (0 для первой страницы).
+     * @param limit     размер страницы.
+     * @param withLikes признак загрузки id проголосовавших пользователей, иначе только их количества.
+     * @return Список фильмов страницы.
+     */
+    public List<Film> findPage(long afterId, int limit, boolean withLikes) {
+        log.info("Film findPage. afterId = " + afterId + ", limit = " + limit + ", withLikes = " + withLikes);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            log.error("Film findPage. Wrong limit = " + limit);
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE + ".");
+        }
+        return filmStorage.findPage(afterId, limit, withLikes);
+    }
+
+    /**
+     * Метод потоковой выгрузки всех фильмов по возрастанию id.
+     *
+     * @param consumer получатель фильмов.
+     */
+    public void streamAll(Consumer<Film> consumer) {
+        log.info("Film streamAll.");
+        filmStorage.streamAll(consumer);
     }
 
     /**
@@ -105,13 +155,7 @@ public class FilmService {
         isRatingExists(film.getMpa().getId());
         isGenresExists(film.getGenres());
 
-        Collection<Film> films = filmStorage.findAll();
-        Optional<Film> theFilm = films
-                .stream()
-                .filter(f -> f.getId().equals(film.getId()))
-                .findFirst();
-
-        if (theFilm.isPresent()) {
+        if (filmStorage.exists(film.getId())) {
             //isFilmExists(film.getName(), film.getReleaseDate(), film.getId());
 
             return filmStorage.update(film);
@@ -121,35 +165,67 @@ public class FilmService {
     }
 
     /**
-     * Метод выставления лайка.
+     * Метод выставления лайка с подтверждением после фиксации в БД.
      *
      * @param filmId понравившийся фильм.
      * @param userId пользователь, выставляющий лайк.
      * @return Список лайков по фильму.
      */
     public List<Long> addLike(long filmId, long userId) {
-        log.info("Film addLike. filmId = " + filmId + ", userId = " + userId);
+        return addLike(filmId, userId, ACK_DURABLE);
+    }
 
+    /**
+     * Метод выставления лайка.
+     *
+     * @param filmId понравившийся фильм.
+     * @param userId пользователь, выставляющий лайк.
+     * @param ack    режим подтверждения: {@link #ACK_DURABLE} или {@link #ACK_BUFFERED}.
+     * @return Список лайков по фильму или null, если лайк принят в буфер без ожидания сохранения.
+     */
+    public List<Long> addLike(long filmId, long userId, String ack) {
+        log.info("Film addLike. filmId = " + filmId + ", userId = " + userId + ", ack = " + ack);
+
+        boolean durable = isDurable(ack);
         checkFilmId(filmId);
         userService.checkUserId(userId, "userId");
 
-        return filmStorage.addLike(filmId, userId);
+        if (!likeWriteBuffer.isEnabled()) {
+            return filmStorage.addLike(filmId, userId);
+        }
+        return submitLike(new LikeChange(filmId, userId, true), durable);
     }
 
     /**
-     * Метод удаления лайка.
+     * Метод удаления лайка с подтверждением после фиксации в БД.
      *
      * @param filmId фильм, который перестал нравится.
      * @param userId пользователь, удаляющий свой лайк.
      * @return Список лайков по фильму.
      */
     public List<Long> deleteLike(long filmId, long userId) {
-        log.info("Film deleteLike. filmId = " + filmId + ", userId = " + userId);
+        return deleteLike(filmId, userId, ACK_DURABLE);
+    }
 
+    /**
+     * Метод удаления лайка.
+     *
+     * @param filmId фильм, который перестал нравится.
+     * @param userId пользователь, удаляющий свой лайк.
+     * @param ack    режим подтверждения: {@link #ACK_DURABLE} или {@link #ACK_BUFFERED}.
+     * @return Список лайков по фильму или null, если удаление принято в буфер без ожидания сохранения.
+     */
+    public List<Long> deleteLike(long filmId, long userId, String ack) {
+        log.info("Film deleteLike. filmId = " + filmId + ", userId = " + userId + ", ack = " + ack);
+
+        boolean durable = isDurable(ack);
         checkFilmId(filmId);
         userService.checkUserId(userId, "userId");
 
-        return filmStorage.deleteLike(filmId, userId);
+        if (!likeWriteBuffer.isEnabled()) {
+            return filmStorage.deleteLike(filmId, userId);
+        }
+        return submitLike(new LikeChange(filmId, userId, false), durable);
     }
 
     /**
@@ -164,8 +240,84 @@ public class FilmService {
         return filmStorage.getPopularFilms(count);
     }
 
+    /**
+     * Метод получения фильмов, которые чаще всего лайкают вместе с заданным.
+     *
+     * @param filmId фильм для обработки.
+     * @param count  объем выборки.
+     * @return Список фильмов.
+     */
+    public List<Film> getSimilarFilms(long filmId, int count) {
+        log.info("getSimilarFilms. filmId = " + filmId + ", count = " + count);
+        checkSimilarCount(count);
+        checkFilmId(filmId);
+
+        return filmStorage.getSimilarFilms(filmId, count);
+    }
+
+    /**
+     * Метод получения рекомендаций пользователю по фильмам, которые лайкают вместе с понравившимися ему.
+     *
+     * @param userId пользователь для обработки.
+     * @param count  объем выборки.
+     * @return Список фильмов.
+     */
+    public List<Film> getRecommendations(long userId, int count) {
+        log.info("getRecommendations. userId = " + userId + ", count = " + count);
+        checkSimilarCount(count);
+        userService.checkUserId(userId, "userId");
+
+        return filmStorage.getRecommendations(userId, count);
+    }
+
+    /**
+     * Метод передачи изменения лайка в буфер отложенной записи.
+     *
+     * @param change  изменение лайка.
+     * @param durable признак ожидания фиксации в БД.
+     * @return Список лайков по фильму после фиксации или null, если фиксация не ожидалась.
+     */
+    private List<Long> submitLike(LikeChange change, boolean durable) {
+        if (!durable) {
+            likeWriteBuffer.submit(change);
+            return null;
+        }
+        likeWriteBuffer.submitAndWait(change);
+        return filmStorage.findLikes(change.filmId());
+    }
+
+    /**
+     * Метод разбора режима подтверждения лайка.
+     *
+     * @param ack режим подтверждения.
+     * @return true для {@link #ACK_DURABLE}, false для {@link #ACK_BUFFERED}.
+     */
+    private boolean isDurable(String ack) {
+        if (ACK_DURABLE.equalsIgnoreCase(ack)) {
+            return true;
+        }
+        if (ACK_BUFFERED.equalsIgnoreCase(ack)) {
+            return false;
+        }
+        log.error("isDurable. Wrong ack = " + ack);
+        throw new ValidationException("Режим подтверждения должен быть " + ACK_DURABLE + " или " + ACK_BUFFERED + ".");
+    }
+
+    /**
+     * Метод проверки объема выборки похожих фильмов и рекомендаций.
+     *
+     * @param count объем выборки.
+     */
+    private void checkSimilarCount(int count) {
+        if (count < 1 || count > MAX_SIMILAR) {
+            log.error("checkSimilarCount. Wrong count = " + count);
+            throw new ValidationException("Объем выборки должен быть от 1 до " + MAX_SIMILAR + ".");
+        }
+    }
+
     /**
      * Метод проверки наличия указанного фильма в хранилище по id.
+     * Проверяется только первичный ключ, данные фильма не загружаются.
      *
      * @param filmId проверяемый идентификатор фильма.
      */
@@ -176,7 +328,10 @@ public class FilmService {
             log.error("Wrong filmId");
             throw new ValidationException("filmId должен быть указан.");
         }
-        filmStorage.findById(filmId);
+        if (!filmStorage.exists(filmId)) {
+            log.error("checkFilmId. Film is not found. filmId = " + filmId);
+            throw new NotFoundException("Фильм с id = " + filmId + " не найден.");
+        }
     }
 
     /**
@@ -212,12 +367,7 @@ public class FilmService {
     private void isRatingExists(long idToFind)
             throws ValidationException {
         if (idToFind > 0) {
-            Collection<Rating> ratings = ratingStorage.findAll();
-            Optional<Rating> ratingExists = ratings
-                    .stream()
-                    .filter(rating -> rating.getId() == idToFind)
-                    .findAny();
-            if (!ratingExists.isPresent()) {
+            if (referenceDataCache.getRating(idToFind) == null) {
                 log.error("isRatingExists. Rating with id = \"" + idToFind + " does not exist.");
                 throw new ValidationException("Этот указанный рейтинг не существует.");
             }
@@ -232,10 +382,10 @@ public class FilmService {
     private void isGenresExists(Set<Genre> genresToFind)
             throws ValidationException {
         if (genresToFind != null && !genresToFind.isEmpty()) {
-            Collection<Genre> genresAll = genreStorage.findAll();
             Optional<Genre> genreNotExists = genresToFind
                     .stream()
-                    .filter(genreToFind -> !genresAll.contains(genreToFind))
+                    .filter(genreToFind -> genreToFind.getId() == null
+                            || referenceDataCache.getGenre(genreToFind.getId()) == null)
                     .findAny();
 
             if (genreNotExists.isPresent()) {
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.util.Collection;
 
@@ -21,6 +22,11 @@ import java.util.Collection;
 public class GenreService {
     private final GenreStorage genreStorage;
 
+    /**
+     * Поле кэша справочников, обновляется после каждого изменения.
+     */
+    private final ReferenceDataCache referenceDataCache;
+
     /**
      * Метод получения всех жанров сервиса.
      *
@@ -50,7 +56,10 @@ public class GenreService {
      */
     public Genre create(Genre newGenre) {
         log.info("Genre create. newGenre = " + newGenre);
-        return genreStorage.create(newGenre);
+        Genre created = genreStorage.create(newGenre);
+        referenceDataCache.refresh();
+
+        return created;
     }
 
     /**
@@ -67,6 +76,9 @@ public class GenreService {
         }
         genreStorage.findById(genre.getId());
 
-        return genreStorage.update(genre);
+        Genre updated = genreStorage.update(genre);
+        referenceDataCache.refresh();
+
+        return updated;
     }
 }
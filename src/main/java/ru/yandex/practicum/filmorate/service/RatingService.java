@@ -6,6 +6,7 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.storage.RatingStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.util.Collection;
 
@@ -21,6 +22,11 @@ import java.util.Collection;
 public class RatingService {
     private final RatingStorage ratingStorage;
 
+    /**
+     * Поле кэша справочников, обновляется после каждого изменения.
+     */
+    private final ReferenceDataCache referenceDataCache;
+
     /**
      * Метод получения всех рейтингов сервиса.
      *
@@ -50,7 +56,10 @@ public class RatingService {
      */
     public Rating create(Rating newRating) {
         log.info("Rating create. newRating = " + newRating);
-        return ratingStorage.create(newRating);
+        Rating created = ratingStorage.create(newRating);
+        referenceDataCache.refresh();
+
+        return created;
     }
 
     /**
@@ -67,6 +76,9 @@ public class RatingService {
         }
         ratingStorage.findById(rating.getId());
 
-        return ratingStorage.update(rating);
+        Rating updated = ratingStorage.update(rating);
+        referenceDataCache.refresh();
+
+        return updated;
     }
 }
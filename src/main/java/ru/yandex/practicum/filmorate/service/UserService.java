@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
@@ -21,6 +22,16 @@ import java.util.Optional;
 @Slf4j
 @RequiredArgsConstructor
 public class UserService {
+    /**
+     * Константа максимального размера страницы при постраничной выдаче.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Константа максимального количества предлагаемых друзей.
+     */
+    public static final int MAX_SUGGESTIONS = 100;
+
     private final UserStorage userStorage;
 
     /**
@@ -33,6 +44,22 @@ public class UserService {
         return userStorage.findAll();
     }
 
+    /**
+     * Метод получения страницы пользователей по возрастанию id.
+     *
+     * @param afterId id последнего пользователя предыдущей страницы (0 для первой страницы).
+     * @param limit   размер страницы.
+     * @return Список пользователей страницы.
+     */
+    public List<User> findPage(long afterId, int limit) {
+        log.info("User findPage. afterId = " + afterId + ", limit = " + limit);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            log.error("User findPage. Wrong limit = " + limit);
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE + ".");
+        }
+        return userStorage.findPage(afterId, limit);
+    }
+
     /**
      * Метод получения данных по конкретному пользователю.
      *
@@ -69,7 +96,7 @@ public class UserService {
             log.error("Wrong id of the user.");
             throw new ValidationException("Id должен быть указан.");
         }
-        userStorage.findById(user.getId());
+        checkUserId(user.getId(), "id");
         isLoginUsed(user.getLogin(), user.getId());
 
         return userStorage.update(user);
@@ -84,8 +111,7 @@ public class UserService {
      */
     public List<Long> addFriend(long userId, long friendId) {
         log.info("User addFriend. userId = " + userId + ", friendId = " + friendId);
-        checkUserId(userId, "userId");
-        checkUserId(friendId, "friendId");
+        checkUserIds(userId, "userId", friendId, "friendId");
         if (userId == friendId) {
             log.error("Wrong friendId.");
             throw new ValidationException("Самого себя в друзья не добавляем.");
@@ -103,8 +129,7 @@ public class UserService {
      */
     public List<Long> deleteFriend(long userId, long friendId) {
         log.info("User deleteFriend. userId = " + userId + ", friendId = " + friendId);
-        checkUserId(userId, "userId");
-        checkUserId(friendId, "friendId");
+        checkUserIds(userId, "userId", friendId, "friendId");
 
         return userStorage.deleteFriend(userId, friendId, false);
     }
@@ -131,35 +156,64 @@ public class UserService {
      */
     public List<User> getCommonFriends(long userId, long otherId) {
         log.info("User getCommonFriends. userId = " + userId + ", otherId = " + otherId);
-        checkUserId(userId, "userId");
-        checkUserId(otherId, "otherId");
+        checkUserIds(userId, "userId", otherId, "otherId");
 
         return userStorage.getCommonFriends(userId, otherId);
     }
 
+    /**
+     * Метод получения количества друзей пользователя, общих с другим пользователем.
+     *
+     * @param userId  пользователь для обработки.
+     * @param otherId другой пользователь.
+     * @return Количество общих друзей.
+     */
+    public int countCommonFriends(long userId, long otherId) {
+        log.info("User countCommonFriends. userId = " + userId + ", otherId = " + otherId);
+        checkUserIds(userId, "userId", otherId, "otherId");
+
+        return userStorage.countCommonFriends(userId, otherId);
+    }
+
+    /**
+     * Метод подбора возможных друзей пользователя по количеству общих друзей.
+     *
+     * @param userId пользователь для обработки.
+     * @param limit  максимальное количество предложений.
+     * @return Список предлагаемых пользователей.
+     */
+    public List<User> getSuggestions(long userId, int limit) {
+        log.info("User getSuggestions. userId = " + userId + ", limit = " + limit);
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            log.error("User getSuggestions. Wrong limit = " + limit);
+            throw new ValidationException("Количество предложений должно быть от 1 до " + MAX_SUGGESTIONS + ".");
+        }
+        checkUserId(userId, "userId");
+
+        return userStorage.getSuggestions(userId, limit);
+    }
+
     /**
      * Метод проверки наличия уже созданного пользователя в хранилище по логину.
+     * Одновременная регистрация с одним логином отсекается уникальным ключом хранилища.
      *
      * @param loginToFind логин для поиска.
      * @param excludeId   идентификатор пользователя, исключаемый из результатов поиска.
      */
     private void isLoginUsed(String loginToFind, long excludeId) throws ValidationException {
         if (loginToFind != null && !loginToFind.isBlank()) {
-            Collection<User> users = userStorage.findAll();
-            Optional<User> userWithLogin = users
-                    .stream()
-                    .filter(user -> user.getId() != excludeId)
-                    .filter(user -> user.getLogin().equals(loginToFind))
-                    .findAny();
+            Optional<Long> userWithLogin = userStorage.findIdByLogin(loginToFind)
+                    .filter(userId -> userId != excludeId);
             if (userWithLogin.isPresent()) {
                 log.error("isLoginUsed. Login \"" + loginToFind + "\" is already used. excludeId = " + excludeId);
-                throw new ValidationException("Этот логин уже используется.");
+                throw new ValidationException(UserStorage.LOGIN_USED_MESSAGE);
             }
         }
     }
 
     /**
      * Метод проверки наличия указанного пользователя в хранилище.
+     * Проверяется только первичный ключ, данные пользователя не загружаются.
      *
      * @param userId    проверяемый идентификатор.
      * @param paramName название проверяемой сущности.
@@ -171,6 +225,26 @@ public class UserService {
             log.error("Wrong " + paramName);
             throw new ValidationException(paramName + " должен быть указан.");
         }
-        userStorage.findById(userId);
+        if (!userStorage.exists(userId)) {
+            log.error("User checkUserId. User is not found. " + paramName + " = " + userId);
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден.");
+        }
+    }
+
+    /**
+     * Метод проверки наличия двух пользователей в хранилище одним обращением.
+     * Если кого-то из них нет, проверки повторяются по одному для точного сообщения об ошибке.
+     *
+     * @param userId    первый проверяемый идентификатор.
+     * @param paramName название первой проверяемой сущности.
+     * @param otherId   второй проверяемый идентификатор.
+     * @param otherName название второй проверяемой сущности.
+     */
+    private void checkUserIds(long userId, String paramName, long otherId, String otherName) {
+        if (userId != 0 && otherId != 0 && userStorage.existsAll(List.of(userId, otherId))) {
+            return;
+        }
+        checkUserId(userId, paramName);
+        checkUserId(otherId, otherName);
     }
 }
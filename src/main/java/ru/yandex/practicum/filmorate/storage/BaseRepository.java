@@ -13,6 +13,8 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 public class BaseRepository<T> {
@@ -50,6 +52,46 @@ public class BaseRepository<T> {
         return jdbc.query(query, params, mapper);
     }
 
+    /**
+     * Метод проверки существования записи по первичному ключу.
+     * Подтвержденные id запоминаются в фильтре, и повторная проверка обходится без БД.
+     *
+     * @param liveIds фильтр подтвержденных id.
+     * @param query   запрос количества записей с id из параметра ids.
+     * @param id      проверяемый id.
+     * @return true, если запись существует.
+     */
+    protected boolean exists(LiveIdFilter liveIds, String query, long id) {
+        return existsAll(liveIds, query, List.of(id));
+    }
+
+    /**
+     * Метод проверки существования всех записей по первичному ключу одним запросом.
+     * В БД проверяются только id, отсутствующие в фильтре.
+     *
+     * @param liveIds фильтр подтвержденных id.
+     * @param query   запрос количества записей с id из параметра ids.
+     * @param ids     проверяемые id.
+     * @return true, если существуют все записи.
+     */
+    protected boolean existsAll(LiveIdFilter liveIds, String query, Collection<Long> ids) {
+        Set<Long> idsToProbe = ids.stream()
+                .filter(id -> !liveIds.contains(id))
+                .collect(Collectors.toSet());
+        if (idsToProbe.isEmpty()) {
+            return true;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("ids", idsToProbe);
+        Integer found = jdbc.queryForObject(query, params, Integer.class);
+        if (found == null || found != idsToProbe.size()) {
+            return false;
+        }
+        idsToProbe.forEach(liveIds::add);
+
+        return true;
+    }
+
     protected void update(String query, MapSqlParameterSource params) {
         int rowsUpdated = jdbc.update(query, params);
         if (rowsUpdated == 0) {
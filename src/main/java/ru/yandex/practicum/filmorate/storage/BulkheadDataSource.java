@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Источник данных с ограничением количества одновременно выданных соединений (bulkhead).
+ * На виртуальных потоках запросов может быть тысячи, а соединений в пуле - единицы: без ограничения
+ * все потоки встают в очередь пула и держат его блокировки. Здесь поток сначала получает разрешение
+ * семафора, ожидая не дольше заданного времени, а разрешение возвращается при закрытии соединения.
+ * Не получивший разрешения поток получает {@link SQLTransientConnectionException}, как при таймауте пула.
+ * Поток, уже держащий соединение, за вторым соединением тоже встает в очередь, поэтому разрешений
+ * должно быть не меньше размера пула.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Slf4j
+public class BulkheadDataSource extends DelegatingDataSource implements MeterBinder {
+    private final Semaphore permits;
+    private final long timeoutNanos;
+
+    private final LongAdder rejections = new LongAdder();
+    private volatile Timer waitTimer;
+
+    public BulkheadDataSource(DataSource target, int permits, Duration timeout) {
+        super(target);
+        this.permits = new Semaphore(permits, true);
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return wrap(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return wrap(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        waitTimer = Timer.builder("filmorate.jdbc.bulkhead.wait")
+                .description("Время ожидания разрешения на соединение с БД")
+                .register(registry);
+        FunctionCounter.builder("filmorate.jdbc.bulkhead.rejections", rejections, LongAdder::doubleValue)
+                .description("Количество запросов соединения, не дождавшихся разрешения")
+                .register(registry);
+        Gauge.builder("filmorate.jdbc.bulkhead.available", permits, Semaphore::availablePermits)
+                .description("Количество свободных разрешений на соединение с БД")
+                .register(registry);
+        Gauge.builder("filmorate.jdbc.bulkhead.queued", permits, Semaphore::getQueueLength)
+                .description("Количество потоков, ожидающих разрешения на соединение с БД")
+                .register(registry);
+    }
+
+    /**
+     * Метод получения разрешения на соединение с ожиданием не дольше таймаута.
+     */
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Ожидание соединения с БД прервано.", e);
+        }
+        Timer timer = waitTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            rejections.increment();
+            log.warn("BulkheadDataSource. Connection permit timeout, queued = " + permits.getQueueLength());
+            throw new SQLTransientConnectionException("Все соединения с БД заняты, повторите запрос позже.");
+        }
+    }
+
+    /**
+     * Метод обертки соединения: первое закрытие возвращает разрешение.
+     *
+     * @param connection соединение пула.
+     * @return Соединение, возвращающее разрешение при закрытии.
+     */
+    private Connection wrap(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        permits.release();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Обертка пула соединений в {@link BulkheadDataSource}, если включен bulkhead (профиль virtual).
+ * Постпроцессор упорядочен, поэтому срабатывает раньше остальных оберток источника данных,
+ * и ограничение стоит непосредственно перед пулом. Метрики регистрируются через постпроцессор,
+ * потому что реестр метрик и источник данных создаются в произвольном порядке.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+public class BulkheadDataSourcePostProcessor implements BeanPostProcessor, Ordered, MeterBinder {
+    private final boolean enabled;
+    private final int permits;
+    private final Duration timeout;
+
+    private BulkheadDataSource bulkhead;
+    private MeterRegistry registry;
+
+    /**
+     * Настройки читаются из окружения напрямую: постпроцессор создается раньше, чем подставляются значения @Value.
+     */
+    public BulkheadDataSourcePostProcessor(Environment environment) {
+        this.enabled = environment.getProperty("filmorate.jdbc-bulkhead.enabled", Boolean.class, false);
+        this.permits = environment.getProperty("filmorate.jdbc-bulkhead.permits", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        this.timeout = environment.getProperty("filmorate.jdbc-bulkhead.timeout", Duration.class,
+                Duration.ofSeconds(1));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public synchronized Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bulkhead == null && bean instanceof DataSource dataSource) {
+            bulkhead = new BulkheadDataSource(dataSource, permits, timeout);
+            if (registry != null) {
+                bulkhead.bindTo(registry);
+            }
+            return bulkhead;
+        }
+        return bean;
+    }
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        if (bulkhead != null) {
+            bulkhead.bindTo(registry);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.LikeSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс совместных лайков: для каждого фильма - сколько пользователей, лайкнувших его,
+ * лайкнули и каждый другой фильм. Счетчики хранятся в разреженных таблицах с ключами int,
+ * по ним для каждого фильма держится список K ближайших соседей. Полная перестройка считает строки
+ * фильмов параллельно в общем пуле ForkJoin, между перестройками индекс изменяется лайками по одному,
+ * а списки соседей затронутых фильмов пересчитываются из их строк при следующем чтении.
+ * Id фильмов должны помещаться в int.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public class CoLikeIndex {
+    /**
+     * Длина хранимого списка соседей фильма.
+     */
+    public static final int TOP_K = 50;
+
+    private static final long[] NO_NEIGHBOURS = {};
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Счетчики совместных лайков по id фильма.
+     */
+    private Map<Long, Counts> coLikes = new HashMap<>();
+
+    /**
+     * Id лайкнутых фильмов по id пользователя.
+     */
+    private Map<Long, LikeSet> filmsByUser = new HashMap<>();
+
+    /**
+     * Списки соседей фильмов: упакованные пары (количество совместных лайков, id фильма) по убыванию.
+     * Отсутствие списка означает, что строка фильма изменилась и список будет пересчитан при чтении.
+     */
+    private Map<Long, long[]> neighbours = new ConcurrentHashMap<>();
+
+    /**
+     * Изменения, сделанные во время полной перестройки, null вне перестройки.
+     */
+    private List<LikeChange> changedDuringRebuild;
+
+    private volatile boolean loaded;
+
+    /**
+     * Метод проверки, построен ли индекс полностью хотя бы раз.
+     *
+     * @return true, если индекс построен.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Метод начала полной перестройки. Изменения до {@link #rebuild(Map)} будут повторены на новом индексе.
+     */
+    public void startRebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Метод полной перестройки индекса по лайкам всех фильмов. Строки фильмов и списки соседей
+     * считаются параллельно, читатели до замены работают с прежним индексом.
+     *
+     * @param likesByFilm id пользователей, поставивших лайк, по id фильма.
+     */
+    public void rebuild(Map<Long, ? extends Collection<Long>> likesByFilm) {
+        Map<Long, LikeSet> newFilmsByUser = new HashMap<>();
+        new TreeMap<>(likesByFilm).forEach((filmId, userIds) -> {
+            toIndex(filmId);
+            userIds.forEach(userId -> newFilmsByUser.computeIfAbsent(userId, id -> new LikeSet()).addId(filmId));
+        });
+        newFilmsByUser.values().forEach(LikeSet::trimToSize);
+
+        Map<Long, Counts> newCoLikes = new ConcurrentHashMap<>();
+        Map<Long, long[]> newNeighbours = new ConcurrentHashMap<>();
+        likesByFilm.entrySet().parallelStream().forEach(entry -> {
+            long filmId = entry.getKey();
+            Counts row = new Counts();
+            for (long userId : entry.getValue()) {
+                for (long otherId : newFilmsByUser.get(userId)) {
+                    if (otherId != filmId) {
+                        row.add((int) otherId, 1);
+                    }
+                }
+            }
+            newCoLikes.put(filmId, row);
+            newNeighbours.put(filmId, row.top(TOP_K));
+        });
+
+        lock.writeLock().lock();
+        try {
+            coLikes = new HashMap<>(newCoLikes);
+            filmsByUser = newFilmsByUser;
+            neighbours = newNeighbours;
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.forEach(change -> change(change.filmId(), change.userId(), change.added()));
+                changedDuringRebuild = null;
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Метод отмены неудавшейся перестройки. Текущий индекс остается в силе.
+     */
+    public void cancelRebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Метод учета изменения лайка. Повторное изменение игнорируется.
+     * Стоимость пропорциональна количеству лайков пользователя.
+     *
+     * @param filmId фильм для обработки.
+     * @param userId пользователь, ставящий или убирающий лайк.
+     * @param added  true - лайк ставится, false - убирается.
+     */
+    public void change(long filmId, long userId, boolean added) {
+        int film = toIndex(filmId);
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(new LikeChange(filmId, userId, added));
+            }
+            LikeSet userFilms = filmsByUser.computeIfAbsent(userId, id -> new LikeSet());
+            if (added ? !userFilms.addId(filmId) : !userFilms.removeId(filmId)) {
+                return;
+            }
+            int delta = added ? 1 : -1;
+            Counts row = coLikes.computeIfAbsent(filmId, id -> new Counts());
+            for (long otherId : userFilms) {
+                if (otherId != filmId) {
+                    row.add((int) otherId, delta);
+                    coLikes.computeIfAbsent(otherId, id -> new Counts()).add(film, delta);
+                    neighbours.remove(otherId);
+                }
+            }
+            neighbours.remove(filmId);
+            if (userFilms.isEmpty()) {
+                filmsByUser.remove(userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Метод получения фильмов, которые чаще всего лайкают вместе с заданным.
+     *
+     * @param filmId фильм для обработки.
+     * @param count  объем выборки, не более {@link #TOP_K}.
+     * @return Список id фильмов по убыванию количества совместных лайков, при равенстве - по возрастанию id.
+     */
+    public List<Long> similar(long filmId, int count) {
+        lock.readLock().lock();
+        try {
+            long[] top = getNeighbours(filmId);
+            List<Long> result = new ArrayList<>(Math.min(count, top.length));
+            for (int i = 0; i < top.length && i < count; i++) {
+                result.add((long) Counts.keyOf(top[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Метод подбора рекомендаций пользователю: соседи его лайкнутых фильмов с суммой количеств
+     * совместных лайков, кроме уже лайкнутых фильмов.
+     *
+     * @param userId пользователь для обработки.
+     * @param count  объем выборки.
+     * @return Список id фильмов по убыванию суммарного веса, при равенстве - по возрастанию id.
+     */
+    public List<Long> recommend(long userId, int count) {
+        lock.readLock().lock();
+        try {
+            LikeSet userFilms = filmsByUser.get(userId);
+            if (userFilms == null) {
+                return List.of();
+            }
+            Counts scores = new Counts();
+            for (long filmId : userFilms) {
+                for (long neighbour : getNeighbours(filmId)) {
+                    int otherId = Counts.keyOf(neighbour);
+                    if (!userFilms.containsId(otherId)) {
+                        scores.add(otherId, Counts.countOf(neighbour));
+                    }
+                }
+            }
+            long[] top = scores.top(count);
+            List<Long> result = new ArrayList<>(top.length);
+            for (long entry : top) {
+                result.add((long) Counts.keyOf(entry));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Метод получения списка соседей фильма с пересчетом из его строки, если строка менялась.
+     * Вызывается под блокировкой чтения: писатели в это время ждут, поэтому пересчитанный список актуален.
+     *
+     * @param filmId фильм для обработки.
+     * @return Упакованные пары соседей.
+     */
+    private long[] getNeighbours(long filmId) {
+        long[] top = neighbours.get(filmId);
+        if (top == null) {
+            Counts row = coLikes.get(filmId);
+            top = row == null ? NO_NEIGHBOURS : row.top(TOP_K);
+            neighbours.put(filmId, top);
+        }
+        return top;
+    }
+
+    private static int toIndex(long filmId) {
+        if (filmId <= 0 || filmId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Id " + filmId + " не помещается в индекс совместных лайков.");
+        }
+        return (int) filmId;
+    }
+
+    /**
+     * Разреженная таблица счетчиков с ключами int: открытая адресация с линейным пробированием.
+     * Ключ 0 означает пустую ячейку, обнулившиеся счетчики остаются до перестройки индекса.
+     */
+    private static final class Counts {
+        private int[] keys = new int[8];
+        private int[] counts = new int[8];
+        private int size;
+
+        private void add(int key, int delta) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                if (++size * 4 > keys.length * 3) {
+                    counts[slot] = delta;
+                    grow();
+                    return;
+                }
+            }
+            counts[slot] += delta;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = mix(oldKeys[i]) & mask;
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        /**
+         * Метод выбора limit ключей с наибольшими положительными счетчиками.
+         *
+         * @param limit объем выборки.
+         * @return Упакованные пары (счетчик, ключ) по убыванию счетчика, при равенстве - по возрастанию ключа.
+         */
+        private long[] top(int limit) {
+            long[] best = new long[Math.min(limit, size)];
+            int found = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == 0 || counts[i] <= 0) {
+                    continue;
+                }
+                long entry = ((long) counts[i] << 32) | (Integer.MAX_VALUE - keys[i]);
+                if (found < best.length) {
+                    best[found++] = entry;
+                    if (found == best.length) {
+                        Arrays.sort(best);
+                    }
+                } else if (best.length > 0 && entry > best[0]) {
+                    int index = Arrays.binarySearch(best, entry);
+                    int insertAt = (index < 0 ? -index - 1 : index) - 1;
+                    System.arraycopy(best, 1, best, 0, insertAt);
+                    best[insertAt] = entry;
+                }
+            }
+            long[] result = Arrays.copyOf(best, found);
+            Arrays.sort(result);
+            for (int i = 0, j = found - 1; i < j; i++, j--) {
+                long swap = result[i];
+                result[i] = result[j];
+                result[j] = swap;
+            }
+            return result;
+        }
+
+        private static int keyOf(long entry) {
+            return Integer.MAX_VALUE - (int) (entry & 0xFFFF_FFFFL);
+        }
+
+        private static int countOf(long entry) {
+            return (int) (entry >>> 32);
+        }
+
+        private static int mix(int key) {
+            int hash = key * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Фоновая перестройка индекса совместных лайков по таблице FILM_LIKES. Подхватывает лайки,
+ * поставленные через другие экземпляры приложения, и убирает обнулившиеся счетчики.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Profile("!in-memory")
+@Slf4j
+@RequiredArgsConstructor
+public class CoLikeIndexRebuilder {
+    /**
+     * Поле репозитория фильмов в БД.
+     */
+    private final FilmDbStorage filmDbStorage;
+
+    /**
+     * Метод периодической перестройки индекса совместных лайков.
+     */
+    @Scheduled(initialDelayString = "${filmorate.co-likes.rebuild-interval:PT10M}",
+            fixedDelayString = "${filmorate.co-likes.rebuild-interval:PT10M}")
+    public void rebuild() {
+        filmDbStorage.rebuildCoLikes();
+    }
+}
@@ -1,30 +1,47 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Primary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.core.namedparam.SqlParameterSourceUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.LikeSet;
 import ru.yandex.practicum.filmorate.storage.mappers.FilmExtractor;
 import ru.yandex.practicum.filmorate.storage.mappers.FilmGenresExtractor;
 import ru.yandex.practicum.filmorate.storage.mappers.FilmLikesExtractor;
-import ru.yandex.practicum.filmorate.storage.mappers.FilmMpaExtractor;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmStreamRowHandler;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -34,9 +51,9 @@ import java.util.stream.Collectors;
  * @version 1.0
  */
 @Repository
-@Primary
+@Profile("!in-memory")
 @Slf4j
-public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
+public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage, MeterBinder {
     private static final String INSERT_QUERY = "INSERT INTO films (name, description, release_date, duration, mpa)" +
             "VALUES (:name, :description, :releaseDate, :duration, :mpa)";
     private static final String UPDATE_QUERY = "UPDATE films SET name = :name, description = :description, " +
@@ -44,30 +61,51 @@ public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
             "WHERE film_id = :filmId";
     private static final String INSERT_GENRES = "INSERT INTO film_genres (film_id, genre_id) VALUES (:filmId, :genreId)";
     private static final String FIND_ALL_QUERY = "SELECT * FROM films";
-    private static final String FIND_BY_ID_QUERY = "SELECT f.film_id, f.name AS film_name, f.description, " +
-            "f.release_date, f.duration, r.rating_id, r.name AS rating_name, g.genre_id, g.name AS genre_name " +
+    private static final String FIND_PAGE_QUERY = "SELECT * FROM films WHERE film_id > :afterId " +
+            "ORDER BY film_id LIMIT :limit";
+    private static final String COUNT_BY_IDS_QUERY = "SELECT COUNT(*) FROM films WHERE film_id IN (:ids)";
+    private static final String FIND_BY_ID_QUERY = "SELECT f.*, fg.genre_id " +
             "FROM films f " +
-            "LEFT JOIN ratings r ON f.mpa = r.rating_id " +
             "LEFT JOIN film_genres fg ON f.film_id = fg.film_id " +
-            "LEFT JOIN genres g ON fg.genre_id = g.genre_id " +
             "WHERE f.film_id = :filmId";
-    private static final String FIND_ALL_FILM_GENRES = "SELECT fg.film_id, fg.genre_id, g.name AS genre_name " +
-            "FROM film_genres fg " +
-            "INNER JOIN genres g ON fg.genre_id = g.genre_id";
-    private static final String FIND_ALL_MPA = "SELECT f.film_id, f.mpa, r.name AS mpa_name " +
+    private static final String STREAM_ALL_QUERY = "SELECT f.*, fg.genre_id " +
             "FROM films f " +
-            "INNER JOIN ratings r ON f.mpa = r.rating_id";
-    private static final String FIND_ALL_LIKES = "SELECT film_id, user_id FROM film_likes";
-    private static final String FIND_LIKES_BY_FILM_ID = "SELECT user_id FROM film_likes WHERE film_id = :filmId";
-    private static final String ADD_LIKE = "INSERT INTO film_likes (film_id, user_id) VALUES (:filmId, :userId)";
+            "LEFT JOIN film_genres fg ON f.film_id = fg.film_id " +
+            "ORDER BY f.film_id";
+    private static final String FIND_BY_IDS_QUERY = "SELECT * FROM films WHERE film_id IN (:ids)";
+    private static final String FIND_ALL_FILM_GENRES = "SELECT film_id, genre_id FROM film_genres";
+    private static final String FIND_ALL_LIKES = "SELECT film_id, user_id FROM film_likes ORDER BY film_id, user_id";
+    private static final String FIND_POPULAR_QUERY = "SELECT * FROM films ORDER BY likes_count DESC, film_id " +
+            "LIMIT :count";
+    private static final String FIND_FILM_GENRES_BY_IDS = "SELECT film_id, genre_id FROM film_genres " +
+            "WHERE film_id IN (:filmIds)";
+    private static final String FIND_LIKES_BY_IDS = "SELECT film_id, user_id FROM film_likes WHERE film_id IN (:filmIds) " +
+            "ORDER BY film_id, user_id";
+    private static final String FIND_LIKES_BY_FILM_ID = "SELECT user_id FROM film_likes WHERE film_id = :filmId " +
+            "ORDER BY user_id";
+    private static final String ADD_LIKE = "INSERT INTO film_likes (film_id, user_id) SELECT :filmId, :userId " +
+            "WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = :filmId AND user_id = :userId)";
     private static final String DEL_LIKE = "DELETE FROM film_likes WHERE film_id = :filmId AND user_id = :userId";
+    private static final String INCREMENT_LIKES_COUNT = "UPDATE films SET likes_count = likes_count + :delta " +
+            "WHERE film_id = :filmId";
+    private static final String FIND_LIKES_COUNT_DRIFT = "SELECT f.film_id, f.likes_count, " +
+            "COALESCE(l.actual_count, 0) AS actual_count " +
+            "FROM films f " +
+            "LEFT JOIN (SELECT film_id, COUNT(*) AS actual_count FROM film_likes GROUP BY film_id) l " +
+            "ON f.film_id = l.film_id " +
+            "WHERE f.likes_count <> COALESCE(l.actual_count, 0)";
+    private static final String RECOUNT_LIKES = "UPDATE films f SET likes_count = " +
+            "(SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id) " +
+            "WHERE f.film_id IN (:filmIds)";
+    private static final String LAZY_EXECUTION_ON = "SET LAZY_QUERY_EXECUTION TRUE";
+    private static final String LAZY_EXECUTION_OFF = "SET LAZY_QUERY_EXECUTION FALSE";
     private static final String DELETE_FILM_GENRES = "DELETE FROM film_genres WHERE film_id = :filmId";
 
     @Autowired
     private FilmGenresExtractor filmGenresExtractor;
 
     @Autowired
-    private FilmMpaExtractor filmMpaExtractor;
+    private ReferenceDataCache referenceDataCache;
 
     @Autowired
     FilmLikesExtractor filmLikesExtractor;
@@ -75,36 +113,126 @@ public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
     @Autowired
     private FilmExtractor filmExtractor;
 
-    public FilmDbStorage(NamedParameterJdbcOperations jdbc, RowMapper<Film> mapper) {
+    /**
+     * Количество строк, запрашиваемых у курсора за одно обращение при потоковой выгрузке.
+     */
+    @Value("${filmorate.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    /**
+     * Фильтр id, существование которых уже подтверждено.
+     */
+    private final LiveIdFilter liveIds;
+
+    /**
+     * Индекс совместных лайков для похожих фильмов и рекомендаций. Строится из FILM_LIKES при первом
+     * обращении и периодически, между перестройками обновляется после фиксации каждого изменения лайков.
+     */
+    private final CoLikeIndex coLikeIndex = new CoLikeIndex();
+
+    /**
+     * Блокировка полной перестройки индекса совместных лайков.
+     */
+    private final Lock coLikeRebuildLock = new ReentrantLock();
+
+    public FilmDbStorage(NamedParameterJdbcOperations jdbc, RowMapper<Film> mapper,
+                         @Value("${filmorate.id-filter.enabled:true}") boolean idFilterEnabled) {
         super(jdbc, mapper);
+        liveIds = new LiveIdFilter("film", idFilterEnabled);
     }
 
     /**
-     * Метод получения всех имеющихся в коллекции фильмов.
+     * Метод получения всех имеющихся в коллекции фильмов с количеством лайков, без id проголосовавших.
      *
      * @return Коллекция фильмов.
      */
     @Override
     public Collection<Film> findAll() {
-        log.info("Film findAll entering");
+        return findAll(false);
+    }
+
+    /**
+     * Метод получения всех имеющихся в коллекции фильмов.
+     *
+     * @param withLikes признак загрузки id проголосовавших пользователей, иначе только их количества.
+     * @return Коллекция фильмов.
+     */
+    @Override
+    public Collection<Film> findAll(boolean withLikes) {
+        log.info("Film findAll entering. withLikes = " + withLikes);
         Collection<Film> films = findMany(FIND_ALL_QUERY);
-        Map<Long, Rating> filmsRating = jdbc.query(FIND_ALL_MPA, filmMpaExtractor);
-        Map<Long, HashSet<Long>> filmsLikes = jdbc.query(FIND_ALL_LIKES, filmLikesExtractor);
         Map<Long, LinkedHashSet<Genre>> filmsGenres = jdbc.query(FIND_ALL_FILM_GENRES, filmGenresExtractor);
+        if (withLikes) {
+            Map<Long, LikeSet> filmsLikes = jdbc.query(FIND_ALL_LIKES, filmLikesExtractor);
+            films.forEach(film -> setLikes(film, filmsLikes.get(film.getId())));
+        }
         films = films.stream()
                 .map(film -> {
-                    film.setMpa(filmsRating.get(film.getId()));
-                    film.setLikesUserId(filmsLikes.get(film.getId()));
                     film.setGenres(filmsGenres.get(film.getId()));
                     return film;
                 })
                 .collect(Collectors.toList());
 
-        log.info("findAll. films = " + films);
+        log.info("findAll. films.size = " + films.size());
 
         return films;
     }
 
+    /**
+     * Метод получения страницы фильмов по возрастанию id (keyset-пагинация).
+     * Жанры и лайки подгружаются только для фильмов страницы.
+     *
+     * @param afterId   id последнего фильма предыдущей страницы (0 для первой страницы).
+     * @param limit     размер страницы.
+     * @param withLikes признак загрузки id проголосовавших пользователей, иначе только их количества.
+     * @return Список фильмов страницы.
+     */
+    @Override
+    public List<Film> findPage(long afterId, int limit, boolean withLikes) {
+        log.info("Film findPage. afterId = " + afterId + ", limit = " + limit + ", withLikes = " + withLikes);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("afterId", afterId);
+        params.addValue("limit", limit);
+
+        List<Film> films = jdbc.query(FIND_PAGE_QUERY, params, mapper);
+
+        return fillFilmsData(films, withLikes);
+    }
+
+    /**
+     * Метод потоковой выгрузки всех фильмов с рейтингом, жанрами и количеством лайков.
+     * Курсор упорядочен по film_id и читается порциями, каждый фильм передается получателю сразу после сборки,
+     * поэтому память не зависит от размера каталога. Для H2 на время запроса включается ленивое выполнение,
+     * иначе результат материализуется целиком.
+     *
+     * @param consumer получатель фильмов.
+     */
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        log.info("Film streamAll. fetchSize = " + streamFetchSize);
+        FilmStreamRowHandler rowHandler = new FilmStreamRowHandler(consumer, referenceDataCache);
+        jdbc.getJdbcOperations().execute((ConnectionCallback<Void>) connection -> {
+            try (Statement lazy = connection.createStatement()) {
+                lazy.execute(LAZY_EXECUTION_ON);
+            }
+            try (PreparedStatement ps = connection.prepareStatement(STREAM_ALL_QUERY,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(streamFetchSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rowHandler.processRow(rs);
+                    }
+                }
+            } finally {
+                try (Statement lazy = connection.createStatement()) {
+                    lazy.execute(LAZY_EXECUTION_OFF);
+                }
+            }
+            return null;
+        });
+        rowHandler.flush();
+    }
+
     /**
      * Метод получения информации по фильму.
      *
@@ -123,11 +251,33 @@ public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
 
         List<Long> likesUserId = jdbc.query(FIND_LIKES_BY_FILM_ID, params, new SingleColumnRowMapper<>(Long.class));
         Film film = foundFilm.get();
-        film.setLikesUserId(new HashSet<>(likesUserId));
+        setLikes(film, new LikeSet(likesUserId));
 
         return film;
     }
 
+    /**
+     * Метод проверки существования фильма по первичному ключу без загрузки данных.
+     *
+     * @param filmId проверяемый id.
+     * @return true, если запись существует.
+     */
+    @Override
+    public boolean exists(long filmId) {
+        return exists(liveIds, COUNT_BY_IDS_QUERY, filmId);
+    }
+
+    /**
+     * Метод проверки существования всех указанных записей одним запросом.
+     *
+     * @param ids проверяемые id.
+     * @return true, если существуют все записи.
+     */
+    @Override
+    public boolean existsAll(Collection<Long> ids) {
+        return existsAll(liveIds, COUNT_BY_IDS_QUERY, ids);
+    }
+
     /**
      * Метод добавления нового фильма.
      *
@@ -146,6 +296,8 @@ public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
 
         Long id = insert(INSERT_QUERY, params);
         newFilm.setId(id);
+        newFilm.setLikesCount(0);
+        liveIds.add(id);
 
         if (newFilm.getGenres() != null && !newFilm.getGenres().isEmpty()) {
             List<HashMap<String, Long>> filmGenres = newFilm.getGenres().stream()
@@ -205,45 +357,113 @@ public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
     }
 
     /**
-     * Метод выставления лайка.
+     * Метод выставления лайка. Повторный лайк игнорируется.
+     * Счетчик лайков фильма изменяется в той же транзакции, что и вставка лайка.
      *
      * @param filmId понравившийся фильм.
      * @param userId пользователь, выставляющий лайк.
      * @return Список лайков по фильму.
      */
     @Override
+    @Transactional
     public List<Long> addLike(long filmId, long userId) {
         log.info("Film addLike. filmId = " + filmId + ", userId = " + userId);
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("filmId", filmId);
         params.addValue("userId", userId);
 
-        jdbc.update(ADD_LIKE, params);
+        int rowsInserted = jdbc.update(ADD_LIKE, params);
+        if (rowsInserted > 0) {
+            changeLikesCount(filmId, rowsInserted);
+            updateCoLikes(List.of(new LikeChange(filmId, userId, true)));
+        }
 
         return jdbc.queryForList(FIND_LIKES_BY_FILM_ID, params, Long.class);
     }
 
     /**
      * Метод удаления лайка.
+     * Счетчик лайков фильма изменяется в той же транзакции, что и удаление лайка.
      *
      * @param filmId фильм, который перестал нравиться.
      * @param filmId пользователь, удаляющий свой лайк.
      * @return Список лайков по фильму.
      */
     @Override
+    @Transactional
     public List<Long> deleteLike(long filmId, long userId) {
         log.info("Film deleteLike. filmId = " + filmId + ", userId = " + userId);
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("filmId", filmId);
         params.addValue("userId", userId);
 
-        jdbc.update(DEL_LIKE, params);
+        int rowsDeleted = jdbc.update(DEL_LIKE, params);
+        if (rowsDeleted > 0) {
+            changeLikesCount(filmId, -rowsDeleted);
+            updateCoLikes(List.of(new LikeChange(filmId, userId, false)));
+        }
+
+        return jdbc.queryForList(FIND_LIKES_BY_FILM_ID, params, Long.class);
+    }
+
+    /**
+     * Метод сохранения пачки изменений лайков одной транзакцией.
+     * Для каждой пары (фильм, пользователь) применяется только последнее изменение.
+     * Вставки и удаления выполняются пакетами, счетчик каждого фильма изменяется одним UPDATE на пачку.
+     * Фильмы обрабатываются по возрастанию id, чтобы параллельные пачки блокировали строки в одном порядке.
+     *
+     * @param changes изменения лайков в порядке поступления.
+     */
+    @Override
+    @Transactional
+    public void applyLikes(List<LikeChange> changes) {
+        log.info("Film applyLikes. changes.size = " + changes.size());
+        Map<Long, Map<Long, Boolean>> lastChanges = new TreeMap<>();
+        changes.forEach(change -> lastChanges.computeIfAbsent(change.filmId(), filmId -> new TreeMap<>())
+                .put(change.userId(), change.added()));
+
+        List<MapSqlParameterSource> added = new ArrayList<>();
+        List<MapSqlParameterSource> deleted = new ArrayList<>();
+        lastChanges.forEach((filmId, users) -> users.forEach((userId, isAdded) ->
+                (isAdded ? added : deleted).add(new MapSqlParameterSource()
+                        .addValue("filmId", filmId)
+                        .addValue("userId", userId))));
+
+        Map<Long, Integer> deltas = new TreeMap<>();
+        List<LikeChange> applied = new ArrayList<>();
+        sumRows(deltas, applied, added, jdbc.batchUpdate(ADD_LIKE, added.toArray(MapSqlParameterSource[]::new)),
+                true);
+        sumRows(deltas, applied, deleted, jdbc.batchUpdate(DEL_LIKE, deleted.toArray(MapSqlParameterSource[]::new)),
+                false);
+
+        MapSqlParameterSource[] countParams = deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("filmId", delta.getKey())
+                        .addValue("delta", delta.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate(INCREMENT_LIKES_COUNT, countParams);
+        updateCoLikes(applied);
+    }
+
+    /**
+     * Метод получения id пользователей, поставивших лайк фильму.
+     *
+     * @param filmId фильм для обработки.
+     * @return Список id пользователей.
+     */
+    @Override
+    public List<Long> findLikes(long filmId) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("filmId", filmId);
 
         return jdbc.queryForList(FIND_LIKES_BY_FILM_ID, params, Long.class);
     }
 
     /**
      * Фильмы по убыванию количества лайков.
+     * Выборка идет по индексу (LIKES_COUNT DESC, FILM_ID), при равенстве лайков порядок определяется id фильма.
+     * Жанры и лайки подгружаются только для отобранных фильмов.
      *
      * @param count объем выборки.
      * @return Список фильмов.
@@ -251,11 +471,220 @@ public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
     @Override
     public List<Film> getPopularFilms(int count) {
         log.info("getPopularFilms. count = " + count);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("count", count);
 
-        return findAll().stream()
-                .sorted((f0, f1) -> -1 * Integer.compare(f0.getLikesUserId() == null ? 0
-                        : f0.getLikesUserId().size(), f1.getLikesUserId() == null ? 0 : f1.getLikesUserId().size()))
-                .limit(count)
+        List<Film> films = jdbc.query(FIND_POPULAR_QUERY, params, mapper);
+
+        return fillFilmsData(films, true);
+    }
+
+    /**
+     * Фильмы, которые чаще всего лайкают вместе с заданным, по списку соседей из индекса совместных лайков.
+     * Из БД читаются только сами отобранные фильмы.
+     *
+     * @param filmId фильм для обработки.
+     * @param count  объем выборки.
+     * @return Список фильмов по убыванию количества совместных лайков.
+     */
+    @Override
+    public List<Film> getSimilarFilms(long filmId, int count) {
+        log.info("Film getSimilarFilms. filmId = " + filmId + ", count = " + count);
+        return findByIds(getCoLikeIndex().similar(filmId, count));
+    }
+
+    /**
+     * Рекомендации пользователю по спискам соседей лайкнутых им фильмов из индекса совместных лайков.
+     * Из БД читаются только сами рекомендованные фильмы.
+     *
+     * @param userId пользователь для обработки.
+     * @param count  объем выборки.
+     * @return Список фильмов по убыванию веса рекомендации.
+     */
+    @Override
+    public List<Film> getRecommendations(long userId, int count) {
+        log.info("Film getRecommendations. userId = " + userId + ", count = " + count);
+        return findByIds(getCoLikeIndex().recommend(userId, count));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        liveIds.bindTo(registry);
+    }
+
+    /**
+     * Метод полной перестройки индекса совместных лайков по таблице FILM_LIKES.
+     * Изменения лайков, сделанные во время перестройки, повторяются на новом индексе.
+     */
+    public void rebuildCoLikes() {
+        coLikeRebuildLock.lock();
+        try {
+            coLikeIndex.startRebuild();
+            Map<Long, LikeSet> filmsLikes;
+            try {
+                filmsLikes = jdbc.query(FIND_ALL_LIKES, filmLikesExtractor);
+            } catch (RuntimeException e) {
+                coLikeIndex.cancelRebuild();
+                throw e;
+            }
+            coLikeIndex.rebuild(filmsLikes);
+            log.info("Film rebuildCoLikes. films = " + filmsLikes.size());
+        } finally {
+            coLikeRebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Метод сверки счетчиков лайков фильмов с таблицей FILM_LIKES.
+     * Расхождения записываются в лог, счетчики таких фильмов пересчитываются.
+     *
+     * @return Количество фильмов с расхождением.
+     */
+    @Transactional
+    public int reconcileLikesCount() {
+        List<Map<String, Object>> drift = jdbc.queryForList(FIND_LIKES_COUNT_DRIFT, new MapSqlParameterSource());
+        if (drift.isEmpty()) {
+            log.info("reconcileLikesCount. No drift.");
+            return 0;
+        }
+        drift.forEach(row -> log.warn("reconcileLikesCount. Drift: filmId = " + row.get("film_id") +
+                ", likesCount = " + row.get("likes_count") + ", actual = " + row.get("actual_count")));
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("filmIds", drift.stream().map(row -> row.get("film_id")).toList());
+        jdbc.update(RECOUNT_LIKES, params);
+
+        return drift.size();
+    }
+
+    /**
+     * Метод изменения счетчика лайков фильма.
+     *
+     * @param filmId фильм для обработки.
+     * @param delta  величина изменения.
+     */
+    private void changeLikesCount(long filmId, int delta) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("filmId", filmId);
+        params.addValue("delta", delta);
+
+        jdbc.update(INCREMENT_LIKES_COUNT, params);
+    }
+
+    /**
+     * Метод суммирования измененных строк пакета по фильмам.
+     *
+     * @param deltas  изменения счетчиков по id фильма.
+     * @param applied действительно примененные изменения лайков.
+     * @param params  параметры пакета.
+     * @param rows    количества измененных строк по элементам пакета.
+     * @param added   true - пакет вставки лайков, false - удаления.
+     */
+    private void sumRows(Map<Long, Integer> deltas, List<LikeChange> applied, List<MapSqlParameterSource> params,
+                         int[] rows, boolean added) {
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] > 0) {
+                long filmId = (Long) params.get(i).getValue("filmId");
+                deltas.merge(filmId, added ? rows[i] : -rows[i], Integer::sum);
+                applied.add(new LikeChange(filmId, (Long) params.get(i).getValue("userId"), added));
+            }
+        }
+    }
+
+    /**
+     * Метод получения индекса совместных лайков с построением при первом обращении.
+     *
+     * @return Индекс совместных лайков.
+     */
+    private CoLikeIndex getCoLikeIndex() {
+        if (!coLikeIndex.isLoaded()) {
+            coLikeRebuildLock.lock();
+            try {
+                if (!coLikeIndex.isLoaded()) {
+                    rebuildCoLikes();
+                }
+            } finally {
+                coLikeRebuildLock.unlock();
+            }
+        }
+        return coLikeIndex;
+    }
+
+    /**
+     * Метод передачи примененных изменений лайков в индекс совместных лайков после фиксации транзакции.
+     *
+     * @param applied примененные изменения лайков.
+     */
+    private void updateCoLikes(List<LikeChange> applied) {
+        if (applied.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applied.forEach(change -> coLikeIndex.change(change.filmId(), change.userId(), change.added()));
+                }
+            });
+        } else {
+            applied.forEach(change -> coLikeIndex.change(change.filmId(), change.userId(), change.added()));
+        }
+    }
+
+    /**
+     * Метод загрузки фильмов по списку id с сохранением порядка списка.
+     *
+     * @param ids id фильмов в нужном порядке.
+     * @return Список фильмов с жанрами и лайками.
+     */
+    private List<Film> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("ids", ids);
+        Map<Long, Film> filmsById = jdbc.query(FIND_BY_IDS_QUERY, params, mapper).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        List<Film> films = ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+
+        return fillFilmsData(films, true);
+    }
+
+    /**
+     * Метод заполнения лайков и жанров у заданного списка фильмов. Рейтинг заполняется при чтении строки фильма.
+     *
+     * @param films     список фильмов.
+     * @param withLikes признак загрузки id проголосовавших пользователей, иначе только их количества.
+     * @return Список фильмов в исходном порядке.
+     */
+    private List<Film> fillFilmsData(List<Film> films, boolean withLikes) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("filmIds", films.stream().map(Film::getId).toList());
+
+        Map<Long, LinkedHashSet<Genre>> filmsGenres = jdbc.query(FIND_FILM_GENRES_BY_IDS, params, filmGenresExtractor);
+        if (withLikes) {
+            Map<Long, LikeSet> filmsLikes = jdbc.query(FIND_LIKES_BY_IDS, params, filmLikesExtractor);
+            films.forEach(film -> setLikes(film, filmsLikes.get(film.getId())));
+        }
+        films.forEach(film -> film.setGenres(filmsGenres.get(film.getId())));
+
+        return films;
+    }
+
+    /**
+     * Метод установки лайков фильма вместе с их количеством.
+     *
+     * @param film        фильм для заполнения.
+     * @param likesUserId множество id проголосовавших пользователей, может отсутствовать.
+     */
+    private void setLikes(Film film, LikeSet likesUserId) {
+        film.setLikesUserId(likesUserId);
+        film.setLikesCount(likesUserId == null ? 0 : likesUserId.size());
     }
 }
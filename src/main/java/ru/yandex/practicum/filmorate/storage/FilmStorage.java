@@ -1,15 +1,27 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     Collection<Film> findAll();
 
+    Collection<Film> findAll(boolean withLikes);
+
+    List<Film> findPage(long afterId, int limit, boolean withLikes);
+
+    void streamAll(Consumer<Film> consumer);
+
     Film findById(long filmId);
 
+    boolean exists(long filmId);
+
+    boolean existsAll(Collection<Long> ids);
+
     Film create(Film newFilm);
 
     Film update(Film film);
@@ -18,5 +30,13 @@ public interface FilmStorage {
 
     List<Long> deleteLike(long filmId, long userId);
 
+    void applyLikes(List<LikeChange> changes);
+
+    List<Long> findLikes(long filmId);
+
     List<Film> getPopularFilms(int count);
+
+    List<Film> getSimilarFilms(long filmId, int count);
+
+    List<Film> getRecommendations(long userId, int count);
 }
@@ -0,0 +1,199 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Списки друзей в виде сжатых битовых карт (RoaringBitmap) по id пользователя.
+ * Общие друзья вычисляются пословным AND карт двух пользователей, количество общих друзей -
+ * без построения результата. Id друзей хранятся как беззнаковые 32-битные числа.
+ * Чтения выполняются параллельно, изменения - под блокировкой записи.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public class FriendAdjacency {
+    /**
+     * Максимальный id, помещающийся в карту.
+     */
+    public static final long MAX_ID = 0xFFFF_FFFFL;
+
+    private final Map<Long, RoaringBitmap> friends = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Метод проверки наличия пользователя в карте.
+     *
+     * @param userId id пользователя.
+     * @return true, если список друзей пользователя есть в карте.
+     */
+    public boolean contains(long userId) {
+        return read(() -> friends.containsKey(userId));
+    }
+
+    /**
+     * Метод получения количества пользователей в карте.
+     *
+     * @return Количество пользователей.
+     */
+    public int size() {
+        return read(friends::size);
+    }
+
+    /**
+     * Метод замены списка друзей пользователя.
+     *
+     * @param userId    id пользователя.
+     * @param friendIds id друзей.
+     */
+    public void put(long userId, Collection<Long> friendIds) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        friendIds.forEach(friendId -> bitmap.add(toInt(friendId)));
+        bitmap.runOptimize();
+        write(() -> friends.put(userId, bitmap));
+    }
+
+    /**
+     * Метод удаления пользователя из карты.
+     *
+     * @param userId id пользователя.
+     */
+    public void remove(long userId) {
+        write(() -> friends.remove(userId));
+    }
+
+    /**
+     * Метод удаления всех пользователей из карты.
+     */
+    public void clear() {
+        write(() -> {
+            friends.clear();
+            return null;
+        });
+    }
+
+    /**
+     * Метод добавления друга. Пользователь добавляется в карту, если его там еще нет.
+     *
+     * @param userId   id пользователя.
+     * @param friendId id друга.
+     * @return true, если друга еще не было.
+     */
+    public boolean add(long userId, long friendId) {
+        int friend = toInt(friendId);
+        return write(() -> friends.computeIfAbsent(userId, id -> new RoaringBitmap()).checkedAdd(friend));
+    }
+
+    /**
+     * Метод удаления друга.
+     *
+     * @param userId   id пользователя.
+     * @param friendId id друга.
+     * @return true, если друг был.
+     */
+    public boolean delete(long userId, long friendId) {
+        int friend = toInt(friendId);
+        return write(() -> {
+            RoaringBitmap bitmap = friends.get(userId);
+            return bitmap != null && bitmap.checkedRemove(friend);
+        });
+    }
+
+    /**
+     * Метод получения id друзей пользователя по возрастанию.
+     *
+     * @param userId id пользователя.
+     * @return Список id друзей, пустой для пользователя не из карты.
+     */
+    public List<Long> getFriends(long userId) {
+        return read(() -> toIds(friends.get(userId)));
+    }
+
+    /**
+     * Метод получения количества друзей пользователя.
+     *
+     * @param userId id пользователя.
+     * @return Количество друзей.
+     */
+    public int count(long userId) {
+        return read(() -> {
+            RoaringBitmap bitmap = friends.get(userId);
+            return bitmap == null ? 0 : bitmap.getCardinality();
+        });
+    }
+
+    /**
+     * Метод получения id общих друзей двух пользователей по возрастанию.
+     *
+     * @param userId  id пользователя.
+     * @param otherId id другого пользователя.
+     * @return Список id общих друзей или null, если кого-то из пользователей нет в карте.
+     */
+    public List<Long> getCommon(long userId, long otherId) {
+        return read(() -> {
+            RoaringBitmap bitmap = friends.get(userId);
+            RoaringBitmap other = friends.get(otherId);
+            return bitmap == null || other == null ? null : toIds(RoaringBitmap.and(bitmap, other));
+        });
+    }
+
+    /**
+     * Метод получения количества общих друзей двух пользователей без построения их списка.
+     *
+     * @param userId  id пользователя.
+     * @param otherId id другого пользователя.
+     * @return Количество общих друзей или -1, если кого-то из пользователей нет в карте.
+     */
+    public int countCommon(long userId, long otherId) {
+        return read(() -> {
+            RoaringBitmap bitmap = friends.get(userId);
+            RoaringBitmap other = friends.get(otherId);
+            return bitmap == null || other == null ? -1 : RoaringBitmap.andCardinality(bitmap, other);
+        });
+    }
+
+    private static List<Long> toIds(RoaringBitmap bitmap) {
+        if (bitmap == null) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach((int id) -> ids.add(Integer.toUnsignedLong(id)));
+        return ids;
+    }
+
+    private static int toInt(long id) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("Id " + id + " не помещается в битовую карту друзей.");
+        }
+        return (int) id;
+    }
+
+    private <T> T read(Supplier<T> action) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Снимок графа друзей в формате CSR (compressed sparse row): друзья пользователя u лежат
+ * в targets[offsets[u]..offsets[u + 1]) по возрастанию id. Изменения после построения снимка
+ * хранятся поверх него как новые списки друзей отдельных пользователей и при накоплении
+ * сливаются в новый снимок. Читатели работают без блокировок с неизменяемым состоянием.
+ * Id пользователей должны помещаться в int.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public class FriendGraph {
+    /**
+     * Порог перестроения снимка по умолчанию.
+     */
+    public static final int DEFAULT_COMPACT_THRESHOLD = 4096;
+
+    /**
+     * Порог параллельного подсчета по умолчанию.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 200_000;
+
+    private static final int[] NO_FRIENDS = {};
+
+    /**
+     * Количество пользователей с измененными списками, после которого снимок перестраивается.
+     */
+    private final int compactThreshold;
+
+    /**
+     * Количество просматриваемых связей друзей друзей, начиная с которого подсчет идет параллельно.
+     */
+    private final int parallelThreshold;
+
+    /**
+     * Пул буферов подсчета для последовательного пути. Буфер размером во весь диапазон id переиспользуется
+     * между запросами через пул, а не через ThreadLocal: на виртуальных потоках каждый запрос идет
+     * в новом потоке, и буфер ThreadLocal создавался бы заново на каждый запрос. Пул ограничен
+     * количеством процессоров, лишние буферы после подсчета отбрасываются.
+     */
+    private final Queue<Scores> scratch = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    private volatile State state = new State(new int[1], NO_FRIENDS, new ConcurrentHashMap<>(), new AtomicInteger());
+
+    /**
+     * Изменения, сделанные во время полной загрузки снимка, null вне загрузки.
+     */
+    private Map<Integer, int[]> changedDuringLoad;
+
+    private volatile boolean loaded;
+
+    public FriendGraph(int compactThreshold, int parallelThreshold) {
+        this.compactThreshold = compactThreshold;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Метод проверки, загружен ли снимок полностью хотя бы раз.
+     *
+     * @return true, если снимок загружен.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Метод начала полной загрузки снимка. Изменения, сделанные до {@link #finishLoad(Builder)},
+     * переносятся в новый снимок поверх загруженных данных.
+     *
+     * @param maxUserId ожидаемый максимальный id пользователя.
+     * @return Построитель снимка.
+     */
+    public synchronized Builder startLoad(long maxUserId) {
+        changedDuringLoad = new ConcurrentHashMap<>();
+        return new Builder(toIndex(maxUserId));
+    }
+
+    /**
+     * Метод завершения полной загрузки снимка.
+     *
+     * @param builder заполненный построитель.
+     */
+    public synchronized void finishLoad(Builder builder) {
+        Map<Integer, int[]> overlay = changedDuringLoad == null ? new ConcurrentHashMap<>() : changedDuringLoad;
+        changedDuringLoad = null;
+        State loadedState = builder.build(overlay);
+        state = overlay.size() > compactThreshold ? compact(loadedState) : loadedState;
+        loaded = true;
+    }
+
+    /**
+     * Метод отмены неудавшейся полной загрузки. Текущий снимок остается в силе.
+     */
+    public synchronized void cancelLoad() {
+        changedDuringLoad = null;
+    }
+
+    /**
+     * Метод замены списка друзей пользователя.
+     *
+     * @param userId    id пользователя.
+     * @param friendIds новый список id друзей.
+     */
+    public synchronized void replace(long userId, Collection<Long> friendIds) {
+        int user = toIndex(userId);
+        int[] friends = friendIds.stream()
+                .mapToInt(FriendGraph::toIndex)
+                .sorted()
+                .distinct()
+                .toArray();
+        State current = state;
+        current.overlay().put(user, friends);
+        current.maxUserId().accumulateAndGet(Math.max(user, friends.length == 0 ? 0 : friends[friends.length - 1]),
+                Math::max);
+        if (changedDuringLoad != null) {
+            changedDuringLoad.put(user, friends);
+        }
+        if (current.overlay().size() > compactThreshold) {
+            state = compact(current);
+        }
+    }
+
+    /**
+     * Метод получения id друзей пользователя по возрастанию.
+     *
+     * @param userId id пользователя.
+     * @return Список id друзей.
+     */
+    public List<Long> getFriends(long userId) {
+        State current = state;
+        int user = toIndex(userId);
+        int[] list = current.overlay().get(user);
+        int from = 0;
+        int to = list == null ? 0 : list.length;
+        if (list == null && user + 1 < current.offsets().length) {
+            list = current.targets();
+            from = current.offsets()[user];
+            to = current.offsets()[user + 1];
+        }
+        List<Long> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add((long) list[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Метод подбора возможных друзей: друзья друзей пользователя, которые еще не его друзья,
+     * по убыванию количества общих друзей, при равенстве - по возрастанию id.
+     *
+     * @param userId id пользователя.
+     * @param limit  максимальное количество предложений.
+     * @return Список id предлагаемых пользователей.
+     */
+    public List<Long> suggest(long userId, int limit) {
+        State current = state;
+        int user = toIndex(userId);
+        int[] friends = current.friendsOf(user);
+        if (friends.length == 0) {
+            return List.of();
+        }
+        int size = current.maxUserId().get() + 1;
+
+        long work = 0;
+        for (int friend : friends) {
+            work += current.degree(friend);
+        }
+        if (work < parallelThreshold) {
+            Scores pooled = scratch.poll();
+            Scores scores = pooled == null ? new Scores(size) : pooled;
+            scores.ensureCapacity(size);
+            try {
+                scores.count(current, friends, 0, friends.length);
+                return scores.top(user, friends, limit);
+            } finally {
+                scores.reset();
+                scratch.offer(scores);
+            }
+        }
+
+        int chunks = Math.min(Runtime.getRuntime().availableProcessors(), friends.length);
+        List<Scores> partial = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    Scores scores = new Scores(size);
+                    scores.count(current, friends, (int) ((long) friends.length * chunk / chunks),
+                            (int) ((long) friends.length * (chunk + 1) / chunks));
+                    return scores;
+                })
+                .toList();
+        Scores total = partial.getFirst();
+        for (int i = 1; i < partial.size(); i++) {
+            total.merge(partial.get(i));
+        }
+        return total.top(user, friends, limit);
+    }
+
+    /**
+     * Метод слияния изменений со снимком в новый снимок.
+     *
+     * @param current текущее состояние.
+     * @return Новое состояние без изменений поверх снимка.
+     */
+    private static State compact(State current) {
+        int maxUserId = Math.max(current.offsets().length - 2, current.maxUserId().get());
+        int[] offsets = new int[maxUserId + 2];
+        long edges = 0;
+        for (int user = 0; user <= maxUserId; user++) {
+            edges += current.degree(user);
+        }
+        int[] targets = new int[Math.toIntExact(edges)];
+        int size = 0;
+        for (int user = 0; user <= maxUserId; user++) {
+            offsets[user] = size;
+            int[] friends = current.friendsOf(user);
+            System.arraycopy(friends, 0, targets, size, friends.length);
+            size += friends.length;
+        }
+        offsets[maxUserId + 1] = size;
+        return new State(offsets, targets, new ConcurrentHashMap<>(), new AtomicInteger(maxUserId));
+    }
+
+    private static int toIndex(long userId) {
+        if (userId < 0 || userId > Integer.MAX_VALUE - 2) {
+            throw new IllegalArgumentException("Id " + userId + " не помещается в граф друзей.");
+        }
+        return (int) userId;
+    }
+
+    /**
+     * Построитель снимка из пар (пользователь, друг), упорядоченных по пользователю.
+     */
+    public static final class Builder {
+        private int[] offsets;
+        private int[] targets = new int[1024];
+        private int size;
+        private int lastUser;
+        private int maxUserId;
+
+        private Builder(int maxUserId) {
+            this.maxUserId = maxUserId;
+            this.offsets = new int[maxUserId + 2];
+        }
+
+        /**
+         * Метод добавления связи. Пары должны идти по возрастанию id пользователя.
+         *
+         * @param userId   id пользователя.
+         * @param friendId id друга.
+         */
+        public void add(long userId, long friendId) {
+            int user = toIndex(userId);
+            int friend = toIndex(friendId);
+            if (user < lastUser) {
+                throw new IllegalArgumentException("Связи должны идти по возрастанию id пользователя.");
+            }
+            maxUserId = Math.max(maxUserId, Math.max(user, friend));
+            if (maxUserId + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(maxUserId + 2, offsets.length + (offsets.length >> 1)));
+            }
+            while (lastUser < user) {
+                offsets[++lastUser] = size;
+            }
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, targets.length + (targets.length >> 1));
+            }
+            targets[size++] = friend;
+        }
+
+        private State build(Map<Integer, int[]> overlay) {
+            int[] builtOffsets = Arrays.copyOf(offsets, maxUserId + 2);
+            while (lastUser < maxUserId + 1) {
+                builtOffsets[++lastUser] = size;
+            }
+            for (int user = 0; user <= maxUserId; user++) {
+                Arrays.sort(targets, builtOffsets[user], builtOffsets[user + 1]);
+            }
+            int overlayMax = overlay.entrySet().stream()
+                    .mapToInt(entry -> Math.max(entry.getKey(),
+                            entry.getValue().length == 0 ? 0 : entry.getValue()[entry.getValue().length - 1]))
+                    .max()
+                    .orElse(0);
+            return new State(builtOffsets, Arrays.copyOf(targets, size), overlay,
+                    new AtomicInteger(Math.max(maxUserId, overlayMax)));
+        }
+    }
+
+    /**
+     * Состояние графа: снимок CSR и измененные после него списки друзей.
+     *
+     * @param offsets   начала списков друзей по id пользователя.
+     * @param targets   id друзей подряд.
+     * @param overlay   новые списки друзей пользователей, измененных после построения снимка.
+     * @param maxUserId максимальный id, встречающийся в графе.
+     */
+    private record State(int[] offsets, int[] targets, Map<Integer, int[]> overlay, AtomicInteger maxUserId) {
+        int[] friendsOf(int user) {
+            int[] list = overlay.get(user);
+            if (list != null) {
+                return list;
+            }
+            return user + 1 < offsets.length ? Arrays.copyOfRange(targets, offsets[user], offsets[user + 1])
+                    : NO_FRIENDS;
+        }
+
+        int degree(int user) {
+            int[] list = overlay.get(user);
+            if (list != null) {
+                return list.length;
+            }
+            return user + 1 < offsets.length ? offsets[user + 1] - offsets[user] : 0;
+        }
+    }
+
+    /**
+     * Счетчики общих друзей по id кандидата с перечнем затронутых кандидатов.
+     */
+    private static final class Scores {
+        private int[] counts;
+        private int[] touched = new int[256];
+        private int touchedSize;
+
+        private Scores(int size) {
+            counts = new int[size];
+        }
+
+        private void ensureCapacity(int size) {
+            if (counts.length < size) {
+                counts = new int[Math.max(size, counts.length + (counts.length >> 1))];
+            }
+        }
+
+        /**
+         * Метод подсчета: каждый друг друга получает +1 за каждого общего друга.
+         */
+        private void count(State state, int[] friends, int from, int to) {
+            int[] offsets = state.offsets();
+            int[] targets = state.targets();
+            for (int i = from; i < to; i++) {
+                int friend = friends[i];
+                int[] list = state.overlay().get(friend);
+                int start = 0;
+                int end = list == null ? 0 : list.length;
+                if (list == null && friend + 1 < offsets.length) {
+                    list = targets;
+                    start = offsets[friend];
+                    end = offsets[friend + 1];
+                }
+                for (int j = start; j < end; j++) {
+                    add(list[j], 1);
+                }
+            }
+        }
+
+        private void add(int candidate, int score) {
+            if (candidate >= counts.length) {
+                return;
+            }
+            if (counts[candidate] == 0) {
+                if (touchedSize == touched.length) {
+                    touched = Arrays.copyOf(touched, touched.length * 2);
+                }
+                touched[touchedSize++] = candidate;
+            }
+            counts[candidate] += score;
+        }
+
+        private void merge(Scores other) {
+            for (int i = 0; i < other.touchedSize; i++) {
+                int candidate = other.touched[i];
+                add(candidate, other.counts[candidate]);
+            }
+        }
+
+        /**
+         * Метод выбора лучших кандидатов, кроме самого пользователя и его друзей.
+         * Ключ кандидата упаковывает количество общих друзей и инвертированный id,
+         * поэтому больший ключ означает лучшего кандидата.
+         */
+        private List<Long> top(int user, int[] friends, int limit) {
+            if (user < counts.length) {
+                counts[user] = 0;
+            }
+            for (int friend : friends) {
+                if (friend < counts.length) {
+                    counts[friend] = 0;
+                }
+            }
+            PriorityQueue<Long> best = new PriorityQueue<>(limit + 1);
+            for (int i = 0; i < touchedSize; i++) {
+                int candidate = touched[i];
+                int count = counts[candidate];
+                if (count == 0) {
+                    continue;
+                }
+                long key = ((long) count << 32) | (Integer.MAX_VALUE - candidate);
+                if (best.size() < limit) {
+                    best.add(key);
+                } else if (key > best.peek()) {
+                    best.poll();
+                    best.add(key);
+                }
+            }
+            Long[] keys = best.toArray(new Long[0]);
+            Arrays.sort(keys);
+            List<Long> result = new ArrayList<>(keys.length);
+            for (int i = keys.length - 1; i >= 0; i--) {
+                result.add((long) (Integer.MAX_VALUE - (int) (keys[i] & 0xFFFF_FFFFL)));
+            }
+            return result;
+        }
+
+        private void reset() {
+            for (int i = 0; i < touchedSize; i++) {
+                counts[touched[i]] = 0;
+            }
+            touchedSize = 0;
+        }
+    }
+}
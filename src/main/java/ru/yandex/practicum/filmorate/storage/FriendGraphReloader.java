@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Фоновая перезагрузка графа друзей из таблицы FRIENDS. Подхватывает изменения,
+ * сделанные другими экземплярами приложения.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Profile("!in-memory")
+@Slf4j
+@RequiredArgsConstructor
+public class FriendGraphReloader {
+    /**
+     * Поле репозитория пользователей в БД.
+     */
+    private final UserDbStorage userDbStorage;
+
+    /**
+     * Метод периодической перезагрузки графа друзей.
+     */
+    @Scheduled(initialDelayString = "${filmorate.friend-graph.reload-interval:PT5M}",
+            fixedDelayString = "${filmorate.friend-graph.reload-interval:PT5M}")
+    public void reload() {
+        userDbStorage.reloadFriendGraph();
+    }
+}
@@ -1,40 +1,120 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.LikeSet;
+import ru.yandex.practicum.filmorate.model.Rating;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Реализация интерфейса работы с фильмами с хранением в памяти.
+ * Включается профилем in-memory. Хранилище потокобезопасно: фильмы лежат в ConcurrentHashMap
+ * и при изменении заменяются целиком, лайки хранятся в отдельных компактных множествах под их монитором,
+ * наружу отдаются копии. Рейтинг и жанры заполняются из кэша справочников при чтении.
  *
  * @author Николаев Д.В.
  * @version 1.0
  */
 @Component
+@Profile("in-memory")
 @Slf4j
+@RequiredArgsConstructor
 public class InMemoryFilmStorage implements FilmStorage {
     /**
-     * Коллекция фильмов.
+     * Коллекция фильмов по id.
      */
-    private final Map<Long, Film> films = new HashMap<>();
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
 
     /**
-     * Метод получения всех имеющихся в коллекции фильмов.
+     * Множества id пользователей, поставивших лайк, по id фильма. Доступ к множеству - под его монитором.
+     */
+    private final Map<Long, LikeSet> likes = new ConcurrentHashMap<>();
+
+    /**
+     * Индекс популярности, обновляется при каждом изменении лайков.
+     */
+    private final PopularityIndex popularityIndex = new PopularityIndex();
+
+    /**
+     * Индекс совместных лайков для похожих фильмов и рекомендаций, обновляется при каждом изменении лайков.
+     */
+    private final CoLikeIndex coLikeIndex = new CoLikeIndex();
+
+    /**
+     * Последний выданный id. Удаления фильмов нет, поэтому все id до него заняты или вот-вот будут заняты.
+     */
+    private final AtomicLong lastId = new AtomicLong();
+
+    /**
+     * Поле кэша справочников жанров и рейтингов.
+     */
+    private final ReferenceDataCache referenceDataCache;
+
+    /**
+     * Метод получения всех имеющихся в коллекции фильмов с количеством лайков, без id проголосовавших.
      *
      * @return Коллекция фильмов.
      */
     @Override
     public Collection<Film> findAll() {
-        log.info("findAll. films = " + films);
-        return films.values();
+        return findAll(false);
+    }
+
+    /**
+     * Метод получения всех имеющихся в коллекции фильмов по возрастанию id.
+     *
+     * @param withLikes признак загрузки id проголосовавших пользователей, иначе только их количества.
+     * @return Коллекция фильмов.
+     */
+    @Override
+    public Collection<Film> findAll(boolean withLikes) {
+        List<Film> result = new ArrayList<>(films.size());
+        forEachFrom(0, Integer.MAX_VALUE, withLikes, result::add);
+        log.info("findAll. films.size = " + result.size());
+        return result;
+    }
+
+    /**
+     * Метод получения страницы фильмов по возрастанию id. Идет по id подряд от afterId,
+     * поэтому стоимость зависит от размера страницы, а не от каталога.
+     *
+     * @param afterId   id последнего фильма предыдущей страницы (0 для первой страницы).
+     * @param limit     размер страницы.
+     * @param withLikes признак загрузки id проголосовавших пользователей, иначе только их количества.
+     * @return Список фильмов страницы.
+     */
+    @Override
+    public List<Film> findPage(long afterId, int limit, boolean withLikes) {
+        log.info("Film findPage. afterId = " + afterId + ", limit = " + limit + ", withLikes = " + withLikes);
+        List<Film> result = new ArrayList<>(limit);
+        forEachFrom(afterId, limit, withLikes, result::add);
+        return result;
+    }
+
+    /**
+     * Метод потоковой выгрузки всех фильмов по возрастанию id.
+     *
+     * @param consumer получатель фильмов.
+     */
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        log.info("Film streamAll.");
+        forEachFrom(0, Integer.MAX_VALUE, false, consumer);
     }
 
     /**
@@ -46,10 +126,33 @@ public class InMemoryFilmStorage implements FilmStorage {
     @Override
     public Film findById(long filmId) {
         log.info("Film findById. filmId = " + filmId);
-        return films.values().stream()
-                .filter(x -> x.getId() == filmId)
-                .findFirst()
-                .orElseThrow(() -> new NotFoundException("Фильм с id = " + filmId + " не найден."));
+        Film film = films.get(filmId);
+        if (film == null) {
+            throw new NotFoundException("Фильм с id = " + filmId + " не найден.");
+        }
+        return toView(film, true);
+    }
+
+    /**
+     * Метод проверки существования фильма.
+     *
+     * @param filmId проверяемый id.
+     * @return true, если запись существует.
+     */
+    @Override
+    public boolean exists(long filmId) {
+        return films.containsKey(filmId);
+    }
+
+    /**
+     * Метод проверки существования всех указанных записей.
+     *
+     * @param ids проверяемые id.
+     * @return true, если существуют все записи.
+     */
+    @Override
+    public boolean existsAll(Collection<Long> ids) {
+        return films.keySet().containsAll(ids);
     }
 
     /**
@@ -60,32 +163,36 @@ public class InMemoryFilmStorage implements FilmStorage {
      */
     @Override
     public Film create(Film newFilm) {
-        newFilm.setId(getNextId());
-        log.info("Film create. newFilm = " + newFilm);
-        films.put(newFilm.getId(), newFilm);
+        long id = lastId.incrementAndGet();
+        Film film = copyOf(newFilm, id);
+        likes.put(id, new LikeSet());
+        films.put(id, film);
+        popularityIndex.add(id);
+        log.info("Film create. newFilm = " + film);
+
+        newFilm.setId(id);
+        newFilm.setLikesCount(0);
         return newFilm;
     }
 
     /**
-     * Метод изменения фильма.
+     * Метод изменения фильма. Хранимый фильм заменяется новой копией, читатели видят либо старую, либо новую.
      *
      * @param film фильм с новыми атрибутами.
      * @return Фильм после изменения.
      */
     @Override
     public Film update(Film film) {
-        Film oldFilm = films.get(film.getId());
         log.info("Film update. film = " + film);
-        oldFilm.setName(film.getName());
-        oldFilm.setDescription(film.getDescription());
-        oldFilm.setReleaseDate(film.getReleaseDate());
-        oldFilm.setDuration(film.getDuration());
-
-        return oldFilm;
+        Film updated = films.computeIfPresent(film.getId(), (id, oldFilm) -> copyOf(film, id));
+        if (updated == null) {
+            throw new NotFoundException("Фильм с id = " + film.getId() + " не найден.");
+        }
+        return toView(updated, true);
     }
 
     /**
-     * Метод выставления лайка.
+     * Метод выставления лайка. Повторный лайк игнорируется.
      *
      * @param filmId понравившийся фильм.
      * @param userId пользователь, выставляющий лайк.
@@ -94,15 +201,8 @@ public class InMemoryFilmStorage implements FilmStorage {
     @Override
     public List<Long> addLike(long filmId, long userId) {
         log.info("Film addLike. filmId = " + filmId + ", userId = " + userId);
-        Film film = films.get(filmId);
-        HashSet<Long> likes = film.getLikesUserId();
-        if (likes == null) {
-            likes = new HashSet<>();
-            film.setLikesUserId(likes);
-        }
-        likes.add(userId);
-
-        return likes.stream().toList();
+        changeLike(filmId, userId, true);
+        return findLikes(filmId);
     }
 
     /**
@@ -115,17 +215,38 @@ public class InMemoryFilmStorage implements FilmStorage {
     @Override
     public List<Long> deleteLike(long filmId, long userId) {
         log.info("Film deleteLike. filmId = " + filmId + ", userId = " + userId);
-        Film film = films.get(filmId);
-        HashSet<Long> likes = film.getLikesUserId();
-        if (likes != null && likes.contains(userId)) {
-            likes.remove(userId);
-        }
+        changeLike(filmId, userId, false);
+        return findLikes(filmId);
+    }
+
+    /**
+     * Метод применения пачки изменений лайков в порядке поступления.
+     *
+     * @param changes изменения лайков.
+     */
+    @Override
+    public void applyLikes(List<LikeChange> changes) {
+        log.info("Film applyLikes. changes.size = " + changes.size());
+        changes.forEach(change -> changeLike(change.filmId(), change.userId(), change.added()));
+    }
 
-        return likes.stream().toList();
+    /**
+     * Метод получения id пользователей, поставивших лайк фильму.
+     *
+     * @param filmId фильм для обработки.
+     * @return Список id пользователей.
+     */
+    @Override
+    public List<Long> findLikes(long filmId) {
+        LikeSet filmLikes = getLikes(filmId);
+        synchronized (filmLikes) {
+            return List.copyOf(filmLikes);
+        }
     }
 
     /**
-     * Фильмы по убыванию количества лайков.
+     * Фильмы по убыванию количества лайков, при равенстве - по возрастанию id.
+     * Берутся первые count фильмов из индекса популярности, остальной каталог не затрагивается.
      *
      * @param count объем выборки.
      * @return Список фильмов.
@@ -133,26 +254,173 @@ public class InMemoryFilmStorage implements FilmStorage {
     @Override
     public List<Film> getPopularFilms(int count) {
         log.info("getPopularFilms. count = " + count);
-        return films.values()
-                .stream()
-                .sorted((f0, f1) -> -1 * Integer.compare(f0.getLikesUserId() == null ? 0
-                        : f0.getLikesUserId().size(), f1.getLikesUserId() == null ? 0 : f1.getLikesUserId().size()))
-                .limit(count)
-                .collect(Collectors.toList());
+        return popularityIndex.top(count).stream()
+                .map(films::get)
+                .map(film -> toView(film, true))
+                .toList();
+    }
+
+    /**
+     * Фильмы, которые чаще всего лайкают вместе с заданным, по списку соседей из индекса совместных лайков.
+     *
+     * @param filmId фильм для обработки.
+     * @param count  объем выборки.
+     * @return Список фильмов по убыванию количества совместных лайков.
+     */
+    @Override
+    public List<Film> getSimilarFilms(long filmId, int count) {
+        log.info("Film getSimilarFilms. filmId = " + filmId + ", count = " + count);
+        getLikes(filmId);
+        return toViews(coLikeIndex.similar(filmId, count));
+    }
+
+    /**
+     * Рекомендации пользователю по спискам соседей лайкнутых им фильмов из индекса совместных лайков.
+     *
+     * @param userId пользователь для обработки.
+     * @param count  объем выборки.
+     * @return Список фильмов по убыванию веса рекомендации.
+     */
+    @Override
+    public List<Film> getRecommendations(long userId, int count) {
+        log.info("Film getRecommendations. userId = " + userId + ", count = " + count);
+        return toViews(coLikeIndex.recommend(userId, count));
     }
 
     /**
-     * Метод для генерации уникальных идентификаторов.
+     * Метод обхода фильмов по возрастанию id, начиная со следующего за afterId.
      *
-     * @return Новый id выше максимального из имеющихся.
+     * @param afterId   id, после которого начинается обход.
+     * @param limit     максимальное количество фильмов.
+     * @param withLikes признак заполнения id проголосовавших пользователей.
+     * @param consumer  получатель фильмов.
+     */
+    private void forEachFrom(long afterId, int limit, boolean withLikes, Consumer<Film> consumer) {
+        long maxId = lastId.get();
+        int found = 0;
+        for (long id = afterId + 1; id <= maxId && found < limit; id++) {
+            Film film = films.get(id);
+            if (film != null) {
+                consumer.accept(toView(film, withLikes));
+                found++;
+            }
+        }
+    }
+
+    /**
+     * Метод изменения лайка с обновлением индексов популярности и совместных лайков.
+     * Повторное изменение игнорируется. Индекс совместных лайков обновляется под монитором множества,
+     * чтобы изменения одного фильма попадали в него в том же порядке.
+     *
+     * @param filmId фильм для обработки.
+     * @param userId пользователь, ставящий или убирающий лайк.
+     * @param added  true - лайк ставится, false - убирается.
      */
-    private long getNextId() {
-        long currentMaxId = films.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        log.debug("getNextId. currentMaxId = " + currentMaxId);
-        return ++currentMaxId;
+    private void changeLike(long filmId, long userId, boolean added) {
+        LikeSet filmLikes = getLikes(filmId);
+        boolean changed;
+        synchronized (filmLikes) {
+            changed = added ? filmLikes.addId(userId) : filmLikes.removeId(userId);
+            if (changed) {
+                coLikeIndex.change(filmId, userId, added);
+            }
+        }
+        if (changed) {
+            popularityIndex.change(filmId, added ? 1 : -1);
+        }
+    }
+
+    /**
+     * Метод сборки списка фильмов для выдачи по их id.
+     *
+     * @param ids id фильмов.
+     * @return Список фильмов в порядке id.
+     */
+    private List<Film> toViews(List<Long> ids) {
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(film -> toView(film, true))
+                .toList();
+    }
+
+    /**
+     * Метод получения множества лайков фильма.
+     *
+     * @param filmId фильм для обработки.
+     * @return Множество id пользователей.
+     */
+    private LikeSet getLikes(long filmId) {
+        LikeSet filmLikes = likes.get(filmId);
+        if (filmLikes == null) {
+            throw new NotFoundException("Фильм с id = " + filmId + " не найден.");
+        }
+        return filmLikes;
+    }
+
+    /**
+     * Метод создания хранимой копии фильма. Лайки хранятся отдельно и в копию не попадают.
+     *
+     * @param film исходный фильм.
+     * @param id   id фильма.
+     * @return Копия фильма.
+     */
+    private Film copyOf(Film film, long id) {
+        return Film.builder()
+                .id(id)
+                .name(film.getName())
+                .description(film.getDescription())
+                .releaseDate(film.getReleaseDate())
+                .duration(film.getDuration())
+                .mpa(film.getMpa() == null ? null : new Rating(film.getMpa().getId(), null))
+                .genres(film.getGenres() == null ? null : film.getGenres().stream()
+                        .map(genre -> new Genre(genre.getId(), null))
+                        .collect(LinkedHashSet::new, LinkedHashSet::add, LinkedHashSet::addAll))
+                .build();
+    }
+
+    /**
+     * Метод сборки фильма для выдачи: копия с лайками, рейтингом и жанрами из кэша справочников.
+     *
+     * @param film      хранимый фильм.
+     * @param withLikes признак заполнения id проголосовавших пользователей, иначе только их количества.
+     * @return Фильм для выдачи.
+     */
+    private Film toView(Film film, boolean withLikes) {
+        LikeSet filmLikes = getLikes(film.getId());
+        LikeSet likesUserId = null;
+        int likesCount;
+        synchronized (filmLikes) {
+            if (withLikes) {
+                likesUserId = new LikeSet(filmLikes);
+            }
+            likesCount = filmLikes.size();
+        }
+
+        Rating mpa = film.getMpa();
+        if (mpa != null) {
+            Rating cached = referenceDataCache.getRating(mpa.getId());
+            mpa = cached == null ? mpa : cached;
+        }
+        LinkedHashSet<Genre> genres = null;
+        if (film.getGenres() != null) {
+            genres = new LinkedHashSet<>();
+            for (Genre genre : film.getGenres()) {
+                Genre cached = referenceDataCache.getGenre(genre.getId());
+                genres.add(cached == null ? genre : cached);
+            }
+        }
+
+        return Film.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .releaseDate(film.getReleaseDate())
+                .duration(film.getDuration())
+                .mpa(mpa)
+                .genres(genres)
+                .likesUserId(likesUserId)
+                .likesCount(likesCount)
+                .build();
     }
 }
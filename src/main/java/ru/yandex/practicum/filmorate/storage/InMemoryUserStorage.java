@@ -1,41 +1,90 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Реализация интерфейса работы с пользователями с хранением в памяти.
+ * Включается профилем in-memory. Хранилище потокобезопасно: пользователи лежат в ConcurrentHashMap
+ * и при изменении заменяются целиком, друзья хранятся в сжатых битовых картах {@link FriendAdjacency}
+ * и дублируются в графе {@link FriendGraph} для подбора возможных друзей,
+ * уникальность логина обеспечивается индексом логинов. Дружба односторонняя, как и в БД.
  *
  * @author Николаев Д.В.
  * @version 1.0
  */
 @Component
+@Profile("in-memory")
 @Slf4j
 public class InMemoryUserStorage implements UserStorage {
     /**
-     * Хранилище пользователей.
+     * Хранилище пользователей по id.
      */
-    private final Map<Long, User> users = new HashMap<>();
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
 
     /**
-     * Метод получения всех пользователей сервиса.
+     * Битовые карты id друзей по id пользователя.
+     */
+    private final FriendAdjacency friends = new FriendAdjacency();
+
+    /**
+     * Граф друзей для подбора возможных друзей. Изменения друзей выполняются под его монитором,
+     * чтобы граф получал списки в том же порядке, в каком они менялись.
+     */
+    private final FriendGraph friendGraph = new FriendGraph(FriendGraph.DEFAULT_COMPACT_THRESHOLD,
+            FriendGraph.DEFAULT_PARALLEL_THRESHOLD);
+
+    /**
+     * Индекс id пользователей по логину.
+     */
+    private final Map<String, Long> logins = new ConcurrentHashMap<>();
+
+    /**
+     * Последний выданный id. Удаления пользователей нет, поэтому все id до него заняты или вот-вот будут заняты.
+     */
+    private final AtomicLong lastId = new AtomicLong();
+
+    /**
+     * Метод получения всех пользователей сервиса по возрастанию id.
      *
      * @return Коллекция пользователей.
      */
     @Override
     public Collection<User> findAll() {
-        log.info("findAll. users = " + users);
-        return users.values();
+        List<User> result = new ArrayList<>(users.size());
+        forEachFrom(0, Integer.MAX_VALUE, result::add);
+        log.info("User findAll. users.size = " + result.size());
+        return result;
+    }
+
+    /**
+     * Метод получения страницы пользователей по возрастанию id.
+     *
+     * @param afterId id последнего пользователя предыдущей страницы (0 для первой страницы).
+     * @param limit   размер страницы.
+     * @return Список пользователей страницы.
+     */
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        log.info("User findPage. afterId = " + afterId + ", limit = " + limit);
+        List<User> result = new ArrayList<>(limit);
+        forEachFrom(afterId, limit, result::add);
+        return result;
     }
 
     /**
@@ -47,14 +96,49 @@ public class InMemoryUserStorage implements UserStorage {
     @Override
     public User findById(long userId) {
         log.info("User findById. userId = " + userId);
-        return users.values().stream()
-                .filter(x -> x.getId() == userId)
-                .findFirst()
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден."));
+        User user = users.get(userId);
+        if (user == null) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден.");
+        }
+        return toView(user);
     }
 
     /**
-     * Метод добавления пользователя.
+     * Метод проверки существования пользователя.
+     *
+     * @param userId проверяемый id.
+     * @return true, если запись существует.
+     */
+    @Override
+    public boolean exists(long userId) {
+        return users.containsKey(userId);
+    }
+
+    /**
+     * Метод проверки существования всех указанных записей.
+     *
+     * @param ids проверяемые id.
+     * @return true, если существуют все записи.
+     */
+    @Override
+    public boolean existsAll(Collection<Long> ids) {
+        return users.keySet().containsAll(ids);
+    }
+
+    /**
+     * Метод поиска id пользователя по логину.
+     *
+     * @param login логин для поиска.
+     * @return id пользователя с таким логином, если он есть.
+     */
+    @Override
+    public Optional<Long> findIdByLogin(String login) {
+        return Optional.ofNullable(logins.get(login));
+    }
+
+    /**
+     * Метод добавления пользователя. Логин занимается атомарно, параллельная регистрация
+     * с тем же логином получает ошибку валидации.
      *
      * @param newUser добавляемый пользователь.
      * @return Добавленный пользователь.
@@ -62,15 +146,18 @@ public class InMemoryUserStorage implements UserStorage {
     @Override
     public User create(User newUser) {
         fillEmptyName(newUser, "create");
-        newUser.setId(getNextId());
+        long id = lastId.incrementAndGet();
+        reserveLogin(newUser.getLogin(), id);
+        friends.put(id, List.of());
+        users.put(id, copyOf(newUser, id));
 
+        newUser.setId(id);
         log.info("User create. newUser = " + newUser);
-        users.put(newUser.getId(), newUser);
         return newUser;
     }
 
     /**
-     * Метод изменения пользователя.
+     * Метод изменения пользователя. Хранимый пользователь заменяется новой копией.
      *
      * @param user пользователь с новыми атрибутами.
      * @return Пользователь после изменения.
@@ -78,15 +165,22 @@ public class InMemoryUserStorage implements UserStorage {
     @Override
     public User update(User user) {
         fillEmptyName(user, "update");
-
-        User oldUser = users.get(user.getId());
         log.info("User update. user = " + user);
-        oldUser.setLogin(user.getLogin());
-        oldUser.setEmail(user.getEmail());
-        oldUser.setName(user.getName());
-        oldUser.setBirthday(user.getBirthday());
+        long id = user.getId();
+        User oldUser = users.get(id);
+        if (oldUser == null) {
+            throw new NotFoundException("Пользователь с id = " + id + " не найден.");
+        }
+        boolean loginChanged = !Objects.equals(oldUser.getLogin(), user.getLogin());
+        if (loginChanged) {
+            reserveLogin(user.getLogin(), id);
+        }
+        users.put(id, copyOf(user, id));
+        if (loginChanged) {
+            logins.remove(oldUser.getLogin(), id);
+        }
 
-        return oldUser;
+        return toView(users.get(id));
     }
 
     /**
@@ -94,25 +188,19 @@ public class InMemoryUserStorage implements UserStorage {
      *
      * @param userId      пользователь, которому добавляется друг.
      * @param friendId    пользователь, добавляемый в друзья.
-     * @param isRecursive признак рекурсивного вызова для исключения зацикливания.
-     * @return Список друзей пользователя userId.
+     * @param isRecursive признак рекурсивного вызова, не используется: дружба односторонняя.
+     * @return Список id друзей пользователя userId.
      */
     @Override
     public List<Long> addFriend(long userId, long friendId, boolean isRecursive) {
         log.info("User addFriend. userId = " + userId + ", friendId = " + friendId + ", isRecursive = " + isRecursive);
-        User user = users.get(userId);
-        Set<Long> friends = user.getFriendsUserId();
-        if (friends == null) {
-            friends = new HashSet<>();
-            user.setFriendsUserId(friends);
-        }
-        friends.add(friendId);
-
-        if (!isRecursive) {
-            addFriend(friendId, userId, true);
+        checkFriends(userId);
+        synchronized (friendGraph) {
+            friends.add(userId, friendId);
+            List<Long> friendIds = friends.getFriends(userId);
+            friendGraph.replace(userId, friendIds);
+            return friendIds;
         }
-
-        return friends.stream().toList();
     }
 
     /**
@@ -120,28 +208,20 @@ public class InMemoryUserStorage implements UserStorage {
      *
      * @param userId      пользователь, который лишается друга.
      * @param friendId    пользователь, убираемый из друзей.
-     * @param isRecursive признак рекурсивного вызова для исключения зацикливания.
-     * @return Список друзей пользователя userId.
+     * @param isRecursive признак рекурсивного вызова, не используется: дружба односторонняя.
+     * @return Список id друзей пользователя userId.
      */
     @Override
     public List<Long> deleteFriend(long userId, long friendId, boolean isRecursive) {
         log.info("User deleteFriend. userId = " + userId + ", friendId = " + friendId + ", isRecursive = "
                 + isRecursive);
-        User user = users.get(userId);
-        Set<Long> friends = user.getFriendsUserId();
-        if (friends != null && friends.contains(friendId)) {
-            friends.remove(friendId);
+        checkFriends(userId);
+        synchronized (friendGraph) {
+            friends.delete(userId, friendId);
+            List<Long> friendIds = friends.getFriends(userId);
+            friendGraph.replace(userId, friendIds);
+            return friendIds;
         }
-
-        if (!isRecursive) {
-            deleteFriend(friendId, userId, true);
-        }
-
-        List<Long> result = null;
-        if (friends != null) {
-            result = friends.stream().toList();
-        }
-        return result;
     }
 
     /**
@@ -153,57 +233,141 @@ public class InMemoryUserStorage implements UserStorage {
     @Override
     public List<User> getAllFriends(long userId) {
         log.info("User getAllFriends. userId = " + userId);
-        User user = users.get(userId);
-        Set<Long> friends = user.getFriendsUserId();
-        List<User> result = new ArrayList<>();
-        if (friends != null) {
-            result = friends.stream()
-                    .map(users::get)
-                    .toList();
-        }
-
-        return result;
+        checkFriends(userId);
+        return toViews(friends.getFriends(userId));
     }
 
     /**
-     * Метод получения друзей пользователя, общих с другим пользователем.
+     * Метод получения друзей пользователя, общих с другим пользователем, по возрастанию id.
+     * Общие друзья вычисляются пересечением битовых карт.
      *
      * @param userId  пользователь, по которому необходимо вывести друзей.
      * @param otherId другой пользователь, для поиска общих друзей с ним.
-     * @return Список id общих друзей.
+     * @return Список общих друзей.
      */
     @Override
     public List<User> getCommonFriends(long userId, long otherId) {
         log.info("User getCommonFriends. userId = " + userId + ", otherId = " + otherId);
-        User user = users.get(userId);
-        User other = users.get(otherId);
-        Set<Long> userFriends = user.getFriendsUserId();
-        Set<Long> otherFriends = other.getFriendsUserId();
-
-        List<User> result = new ArrayList<>();
-        if (userFriends != null && otherFriends != null) {
-            result = userFriends.stream()
-                    .filter(otherFriends::contains)
-                    .map(users::get)
-                    .toList();
+        checkFriends(userId);
+        checkFriends(otherId);
+        return toViews(friends.getCommon(userId, otherId));
+    }
+
+    /**
+     * Метод получения количества общих друзей двух пользователей без загрузки самих друзей.
+     *
+     * @param userId  пользователь для обработки.
+     * @param otherId другой пользователь.
+     * @return Количество общих друзей.
+     */
+    @Override
+    public int countCommonFriends(long userId, long otherId) {
+        log.info("User countCommonFriends. userId = " + userId + ", otherId = " + otherId);
+        checkFriends(userId);
+        checkFriends(otherId);
+        return friends.countCommon(userId, otherId);
+    }
+
+    /**
+     * Метод подбора возможных друзей: друзья друзей, которые еще не друзья пользователя,
+     * по убыванию количества общих друзей, при равенстве - по возрастанию id.
+     *
+     * @param userId пользователь для обработки.
+     * @param limit  максимальное количество предложений.
+     * @return Список предлагаемых пользователей.
+     */
+    @Override
+    public List<User> getSuggestions(long userId, int limit) {
+        log.info("User getSuggestions. userId = " + userId + ", limit = " + limit);
+        checkFriends(userId);
+        return toViews(friendGraph.suggest(userId, limit));
+    }
+
+    /**
+     * Метод обхода пользователей по возрастанию id, начиная со следующего за afterId.
+     *
+     * @param afterId  id, после которого начинается обход.
+     * @param limit    максимальное количество пользователей.
+     * @param consumer получатель пользователей.
+     */
+    private void forEachFrom(long afterId, int limit, Consumer<User> consumer) {
+        long maxId = lastId.get();
+        int found = 0;
+        for (long id = afterId + 1; id <= maxId && found < limit; id++) {
+            User user = users.get(id);
+            if (user != null) {
+                consumer.accept(toView(user));
+                found++;
+            }
         }
+    }
 
-        return result;
+    /**
+     * Метод атомарного занятия логина.
+     *
+     * @param login  занимаемый логин.
+     * @param userId пользователь, занимающий логин.
+     */
+    private void reserveLogin(String login, long userId) {
+        Long ownerId = logins.putIfAbsent(login, userId);
+        if (ownerId != null && ownerId != userId) {
+            log.error("reserveLogin. Login \"" + login + "\" is already used by userId = " + ownerId);
+            throw new ValidationException(LOGIN_USED_MESSAGE);
+        }
+    }
+
+    /**
+     * Метод проверки, что список друзей пользователя заведен.
+     *
+     * @param userId пользователь для обработки.
+     */
+    private void checkFriends(long userId) {
+        if (!friends.contains(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден.");
+        }
+    }
+
+    /**
+     * Метод создания хранимой копии пользователя. Друзья хранятся отдельно и в копию не попадают.
+     *
+     * @param user исходный пользователь.
+     * @param id   id пользователя.
+     * @return Копия пользователя.
+     */
+    private User copyOf(User user, long id) {
+        return User.builder()
+                .id(id)
+                .email(user.getEmail())
+                .login(user.getLogin())
+                .name(user.getName())
+                .birthday(user.getBirthday())
+                .build();
+    }
+
+    /**
+     * Метод сборки пользователя для выдачи: копия с текущими друзьями.
+     *
+     * @param user хранимый пользователь.
+     * @return Пользователь для выдачи.
+     */
+    private User toView(User user) {
+        User view = copyOf(user, user.getId());
+        view.setFriendsUserId(new HashSet<>(friends.getFriends(user.getId())));
+        return view;
     }
 
     /**
-     * Метод для генерации уникальных идентификаторов.
+     * Метод сборки списка пользователей для выдачи по их id.
      *
-     * @return Новый id выше максимального из имеющихся.
+     * @param ids id пользователей.
+     * @return Список пользователей.
      */
-    private long getNextId() {
-        long currentMaxId = users.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        log.debug("getNextId. currentMaxId = " + currentMaxId);
-        return ++currentMaxId;
+    private List<User> toViews(Collection<Long> ids) {
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(this::toView)
+                .toList();
     }
 
     /**
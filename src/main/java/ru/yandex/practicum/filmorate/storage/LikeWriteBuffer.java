@@ -0,0 +1,325 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Буфер отложенной записи лайков. Изменения складываются в ограниченную очередь,
+ * фоновый поток забирает их пачками и сохраняет одной транзакцией через {@link FilmStorage#applyLikes(List)}.
+ * Пачка сохраняется, когда набралось flush-size изменений или прошло flush-interval с первого из них.
+ * Если в пачке есть изменение, ожидающее подтверждения, пачка сохраняется сразу вместе со всем,
+ * что успело накопиться (групповая фиксация).
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class LikeWriteBuffer implements MeterBinder {
+    /**
+     * Время ожидания первого изменения пустой очередью, после которого проверяется признак остановки.
+     */
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    /**
+     * Поле репозитория фильмов.
+     */
+    private final FilmStorage filmStorage;
+
+    /**
+     * Очередь изменений, ожидающих сохранения.
+     */
+    private final BlockingQueue<Pending> queue;
+
+    /**
+     * Признак включения буфера. Выключенный буфер не запускает фоновый поток.
+     */
+    private final boolean enabled;
+
+    /**
+     * Максимальный размер пачки.
+     */
+    private final int flushSize;
+
+    /**
+     * Максимальное время накопления пачки с момента первого изменения.
+     */
+    private final long flushIntervalNanos;
+
+    /**
+     * Максимальное время ожидания места в очереди и подтверждения сохранения.
+     */
+    private final long ackTimeoutNanos;
+
+    private final LongAdder flushedChanges = new LongAdder();
+    private final LongAdder rejectedChanges = new LongAdder();
+    private final LongAdder failedChanges = new LongAdder();
+
+    private volatile DistributionSummary flushSizeSummary;
+    private volatile Timer flushLatencyTimer;
+    private volatile boolean running;
+    private Thread drainer;
+
+    public LikeWriteBuffer(FilmStorage filmStorage,
+                           @Value("${filmorate.like-buffer.enabled:true}") boolean enabled,
+                           @Value("${filmorate.like-buffer.capacity:10000}") int capacity,
+                           @Value("${filmorate.like-buffer.flush-size:500}") int flushSize,
+                           @Value("${filmorate.like-buffer.flush-interval:PT0.02S}") Duration flushInterval,
+                           @Value("${filmorate.like-buffer.ack-timeout:PT5S}") Duration ackTimeout) {
+        this.filmStorage = filmStorage;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.ackTimeoutNanos = ackTimeout.toNanos();
+    }
+
+    /**
+     * Метод проверки включения буфера.
+     *
+     * @return true, если изменения лайков нужно передавать в буфер.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Метод запуска фонового потока сохранения.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("LikeWriteBuffer disabled.");
+            return;
+        }
+        running = true;
+        drainer = new Thread(this::drain, "like-write-buffer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Метод остановки фонового потока. Все принятые изменения сохраняются до выхода.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (drainer != null) {
+            drainer.join();
+            log.info("LikeWriteBuffer stopped. flushedChanges = " + flushedChanges.sum());
+        }
+    }
+
+    /**
+     * Метод передачи изменения в буфер без ожидания сохранения.
+     *
+     * @param change изменение лайка.
+     */
+    public void submit(LikeChange change) {
+        enqueue(new Pending(change, null));
+    }
+
+    /**
+     * Метод передачи изменения в буфер с ожиданием фиксации пачки, в которую оно попало.
+     *
+     * @param change изменение лайка.
+     */
+    public void submitAndWait(LikeChange change) {
+        CompletableFuture<Void> ack = new CompletableFuture<>();
+        enqueue(new Pending(change, ack));
+        try {
+            ack.get(ackTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw new InternalServerException("Не удалось сохранить лайк.");
+        } catch (TimeoutException e) {
+            log.error("LikeWriteBuffer submitAndWait. Ack timeout, change = " + change);
+            throw new InternalServerException("Лайк не сохранен за отведенное время.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerException("Ожидание сохранения лайка прервано.");
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.likes.buffer.depth", queue, BlockingQueue::size)
+                .description("Количество изменений лайков, ожидающих сохранения")
+                .register(registry);
+        flushSizeSummary = DistributionSummary.builder("filmorate.likes.buffer.flush.size")
+                .description("Количество изменений лайков в сохраненной пачке")
+                .register(registry);
+        flushLatencyTimer = Timer.builder("filmorate.likes.buffer.flush.latency")
+                .description("Время сохранения пачки изменений лайков")
+                .register(registry);
+        FunctionCounter.builder("filmorate.likes.buffer.changes", flushedChanges, LongAdder::doubleValue)
+                .description("Количество изменений лайков, прошедших через буфер")
+                .tag("result", "flushed")
+                .register(registry);
+        FunctionCounter.builder("filmorate.likes.buffer.changes", rejectedChanges, LongAdder::doubleValue)
+                .description("Количество изменений лайков, прошедших через буфер")
+                .tag("result", "rejected")
+                .register(registry);
+        FunctionCounter.builder("filmorate.likes.buffer.changes", failedChanges, LongAdder::doubleValue)
+                .description("Количество изменений лайков, прошедших через буфер")
+                .tag("result", "failed")
+                .register(registry);
+    }
+
+    /**
+     * Метод постановки изменения в очередь. При заполненной очереди вызывающий поток ждет места,
+     * но не дольше ack-timeout.
+     *
+     * @param pending изменение для сохранения.
+     */
+    private void enqueue(Pending pending) {
+        if (!running) {
+            throw new InternalServerException("Буфер лайков остановлен.");
+        }
+        try {
+            if (queue.offer(pending, ackTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedChanges.increment();
+        log.error("LikeWriteBuffer enqueue. Queue is full, change = " + pending.change());
+        throw new InternalServerException("Очередь лайков переполнена.");
+    }
+
+    /**
+     * Цикл фонового потока: сбор и сохранение пачек до остановки и опустошения очереди.
+     */
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(flushSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                log.warn("LikeWriteBuffer drain interrupted.");
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Метод сбора пачки: ждет первое изменение, затем добирает очередь до flush-size,
+     * пока не истечет flush-interval или в пачке не появится изменение, ожидающее подтверждения.
+     *
+     * @param batch пустая пачка для заполнения.
+     */
+    private void collect(List<Pending> batch) throws InterruptedException {
+        Pending first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        batch.add(first);
+        queue.drainTo(batch, flushSize - batch.size());
+
+        int scanned = 0;
+        boolean awaited = false;
+        while (true) {
+            for (; scanned < batch.size(); scanned++) {
+                awaited |= batch.get(scanned).ack() != null;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (awaited || batch.size() >= flushSize || remaining <= 0 || !running) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, flushSize - batch.size());
+        }
+    }
+
+    /**
+     * Метод сохранения пачки одной транзакцией. Если пачка не сохранилась, изменения сохраняются
+     * по одному, чтобы ошибочное изменение не помешало остальным. Ожидающие получают подтверждение
+     * после учета пачки в метриках.
+     *
+     * @param batch пачка изменений.
+     */
+    private void flush(List<Pending> batch) {
+        long start = System.nanoTime();
+        RuntimeException[] errors = new RuntimeException[batch.size()];
+        try {
+            filmStorage.applyLikes(batch.stream().map(Pending::change).toList());
+        } catch (RuntimeException e) {
+            log.error("LikeWriteBuffer flush. Batch of " + batch.size() + " failed, retrying one by one: "
+                    + e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    filmStorage.applyLikes(List.of(batch.get(i).change()));
+                } catch (RuntimeException ex) {
+                    log.error("LikeWriteBuffer flush. Change " + batch.get(i).change() + " failed: "
+                            + ex.getMessage());
+                    failedChanges.increment();
+                    errors[i] = ex;
+                }
+            }
+        }
+
+        DistributionSummary summary = flushSizeSummary;
+        Timer timer = flushLatencyTimer;
+        if (summary != null && timer != null) {
+            summary.record(batch.size());
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (errors[i] == null) {
+                flushedChanges.increment();
+            }
+            complete(batch.get(i), errors[i]);
+        }
+    }
+
+    private void complete(Pending pending, Throwable error) {
+        if (pending.ack() == null) {
+            return;
+        }
+        if (error == null) {
+            pending.ack().complete(null);
+        } else {
+            pending.ack().completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Изменение в очереди.
+     *
+     * @param change изменение лайка.
+     * @param ack    подтверждение сохранения, null если его никто не ждет.
+     */
+    private record Pending(LikeChange change, CompletableFuture<Void> ack) {
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Фоновая сверка денормализованных счетчиков лайков FILMS.LIKES_COUNT с таблицей FILM_LIKES.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Profile("!in-memory")
+@Slf4j
+@RequiredArgsConstructor
+public class LikesCountReconciler {
+    /**
+     * Поле репозитория фильмов в БД.
+     */
+    private final FilmDbStorage filmDbStorage;
+
+    /**
+     * Метод периодической сверки и пересчета счетчиков с расхождениями.
+     */
+    @Scheduled(initialDelayString = "${filmorate.likes-count.reconcile-initial-delay:PT1M}",
+            fixedDelayString = "${filmorate.likes-count.reconcile-interval:PT1H}")
+    public void reconcile() {
+        int driftCount = filmDbStorage.reconcileLikesCount();
+        if (driftCount > 0) {
+            log.warn("LikesCountReconciler. Likes count rebuilt for " + driftCount + " films.");
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.monitoring.CacheLookupEvent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Битовая карта id, существование которых уже подтверждено базой данных.
+ * Установленный бит означает, что запись точно есть, и проверку в БД можно пропустить.
+ * Сброшенный бит ничего не означает: запись могла быть создана другим экземпляром приложения,
+ * поэтому такой id проверяется в БД. Удаления записей в хранилищах нет, поэтому биты не сбрасываются.
+ * Выключенный фильтр ничего не запоминает, и каждая проверка идет в БД.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public class LiveIdFilter {
+    /**
+     * Максимальный id, хранимый в карте. Большие id всегда проверяются в БД.
+     */
+    public static final long MAX_ID = 1L << 26;
+
+    /**
+     * Слова битовой карты. Массив пересоздается при росте, потерянный при этом бит
+     * означает лишь повторную проверку в БД.
+     */
+    private volatile AtomicLongArray words = new AtomicLongArray(1024);
+
+    /**
+     * Вид записей фильтра для метрик и событий JFR.
+     */
+    private final String type;
+
+    /**
+     * Имя кэша в событиях JFR.
+     */
+    private final String cacheName;
+
+    /**
+     * Признак включения фильтра.
+     */
+    private final boolean enabled;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public LiveIdFilter(String type, boolean enabled) {
+        this.type = type;
+        this.cacheName = type + "-ids";
+        this.enabled = enabled;
+    }
+
+    /**
+     * Метод проверки, подтверждено ли существование id.
+     *
+     * @param id проверяемый id.
+     * @return true, если запись с таким id точно существует.
+     */
+    public boolean contains(long id) {
+        if (!enabled || id <= 0 || id >= MAX_ID) {
+            return false;
+        }
+        AtomicLongArray current = words;
+        int index = (int) (id >>> 6);
+        boolean found = index < current.length() && (current.get(index) & (1L << id)) != 0;
+        (found ? hits : misses).increment();
+        CacheLookupEvent.emit(cacheName, id, found);
+        return found;
+    }
+
+    /**
+     * Метод регистрации счетчиков обращений к фильтру.
+     *
+     * @param registry реестр метрик.
+     */
+    public void bindTo(MeterRegistry registry) {
+        bindLookups(registry, "hit", hits);
+        bindLookups(registry, "miss", misses);
+    }
+
+    /**
+     * Метод отметки id как существующего. Внутри транзакции отметка откладывается до ее фиксации,
+     * чтобы откат не оставил в карте несуществующую запись.
+     *
+     * @param id подтвержденный id.
+     */
+    public void add(long id) {
+        if (!enabled || id <= 0 || id >= MAX_ID) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    set(id);
+                }
+            });
+        } else {
+            set(id);
+        }
+    }
+
+    private void bindLookups(MeterRegistry registry, String result, LongAdder counter) {
+        FunctionCounter.builder("filmorate.id.filter.lookups", counter, LongAdder::doubleValue)
+                .description("Количество проверок существования id по фильтру")
+                .tag("type", type)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private void set(long id) {
+        int index = (int) (id >>> 6);
+        AtomicLongArray current = words;
+        if (index >= current.length()) {
+            current = grow(index);
+        }
+        long mask = 1L << id;
+        current.getAndUpdate(index, word -> word | mask);
+    }
+
+    private synchronized AtomicLongArray grow(int index) {
+        AtomicLongArray current = words;
+        if (index < current.length()) {
+            return current;
+        }
+        int length = current.length();
+        while (length <= index) {
+            length *= 2;
+        }
+        AtomicLongArray grown = new AtomicLongArray(length);
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        words = grown;
+        return grown;
+    }
+}
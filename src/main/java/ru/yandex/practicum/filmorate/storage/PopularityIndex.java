@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Индекс популярности фильмов: упорядоченное множество пар (количество лайков, id фильма)
+ * по убыванию лайков, при равенстве - по возрастанию id.
+ * Изменение количества лайков стоит O(log n), первые N фильмов читаются за O(N).
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public class PopularityIndex {
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+
+    /**
+     * Пары (лайки, фильм) в порядке популярности.
+     */
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+    /**
+     * Текущее количество лайков по id фильма.
+     */
+    private final Map<Long, Integer> likesByFilm = new ConcurrentHashMap<>();
+
+    /**
+     * Метод добавления фильма без лайков.
+     *
+     * @param filmId добавляемый фильм.
+     */
+    public void add(long filmId) {
+        likesByFilm.computeIfAbsent(filmId, id -> {
+            ranking.add(new Entry(0, id));
+            return 0;
+        });
+    }
+
+    /**
+     * Метод изменения количества лайков фильма. Изменения одного фильма выполняются последовательно.
+     * Новая пара добавляется раньше удаления старой, поэтому параллельный читатель не теряет фильм,
+     * а возможный дубль отбрасывается в {@link #top(int)}.
+     *
+     * @param filmId фильм для обработки.
+     * @param delta  величина изменения.
+     */
+    public void change(long filmId, int delta) {
+        likesByFilm.compute(filmId, (id, likes) -> {
+            int oldLikes = likes == null ? 0 : likes;
+            int newLikes = oldLikes + delta;
+            ranking.add(new Entry(newLikes, id));
+            ranking.remove(new Entry(oldLikes, id));
+            return newLikes;
+        });
+    }
+
+    /**
+     * Метод получения id самых популярных фильмов.
+     *
+     * @param count объем выборки.
+     * @return Список id фильмов по убыванию популярности.
+     */
+    public List<Long> top(int count) {
+        List<Long> result = new ArrayList<>(Math.min(count, likesByFilm.size()));
+        Set<Long> seen = new HashSet<>();
+        Iterator<Entry> iterator = ranking.iterator();
+        while (result.size() < count && iterator.hasNext()) {
+            long filmId = iterator.next().filmId();
+            if (seen.add(filmId)) {
+                result.add(filmId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Пара индекса.
+     *
+     * @param likes  количество лайков.
+     * @param filmId id фильма.
+     */
+    private record Entry(int likes, long filmId) {
+    }
+}
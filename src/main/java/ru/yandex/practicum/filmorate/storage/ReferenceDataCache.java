@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.monitoring.CacheLookupEvent;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш справочников жанров и рейтингов: неизменяемый снимок с доступом по id.
+ * Снимок загружается при первом обращении и целиком заменяется при изменении справочников.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReferenceDataCache implements MeterBinder {
+    /**
+     * Поле репозитория жанров.
+     */
+    private final GenreStorage genreStorage;
+
+    /**
+     * Поле репозитория рейтингов.
+     */
+    private final RatingStorage ratingStorage;
+
+    /**
+     * Текущий снимок справочников, null до первой загрузки.
+     */
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * Блокировка загрузки и перезагрузки снимка.
+     */
+    private final Lock loadLock = new ReentrantLock();
+
+    private final LongAdder genreHits = new LongAdder();
+    private final LongAdder genreMisses = new LongAdder();
+    private final LongAdder ratingHits = new LongAdder();
+    private final LongAdder ratingMisses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    /**
+     * Метод получения жанра по id.
+     *
+     * @param genreId жанр для поиска.
+     * @return Жанр или null, если такого жанра нет.
+     */
+    public Genre getGenre(long genreId) {
+        Genre genre = getSnapshot().genres().get(genreId);
+        (genre == null ? genreMisses : genreHits).increment();
+        CacheLookupEvent.emit("genre", genreId, genre != null);
+        return genre;
+    }
+
+    /**
+     * Метод получения рейтинга по id.
+     *
+     * @param ratingId рейтинг для поиска.
+     * @return Рейтинг или null, если такого рейтинга нет.
+     */
+    public Rating getRating(long ratingId) {
+        Rating rating = getSnapshot().ratings().get(ratingId);
+        (rating == null ? ratingMisses : ratingHits).increment();
+        CacheLookupEvent.emit("rating", ratingId, rating != null);
+        return rating;
+    }
+
+    /**
+     * Метод перезагрузки снимка справочников из репозиториев.
+     * Читатели продолжают работать с прежним снимком до его замены. Перезагрузки выполняются
+     * под блокировкой загрузки по очереди, чтобы более ранняя загрузка не заменила снимок более поздней.
+     */
+    public void refresh() {
+        loadLock.lock();
+        try {
+            Map<Long, Genre> genres = genreStorage.findAll().stream()
+                    .collect(Collectors.toUnmodifiableMap(Genre::getId,
+                            genre -> new Genre(genre.getId(), genre.getName())));
+            Map<Long, Rating> ratings = ratingStorage.findAll().stream()
+                    .collect(Collectors.toUnmodifiableMap(Rating::getId,
+                            rating -> new Rating(rating.getId(), rating.getName())));
+            snapshot.set(new Snapshot(genres, ratings));
+            refreshes.increment();
+            log.info("ReferenceDataCache refresh. genres = " + genres.size() + ", ratings = " + ratings.size());
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindLookups(registry, "genre", "hit", genreHits);
+        bindLookups(registry, "genre", "miss", genreMisses);
+        bindLookups(registry, "rating", "hit", ratingHits);
+        bindLookups(registry, "rating", "miss", ratingMisses);
+        FunctionCounter.builder("filmorate.reference.cache.refreshes", refreshes, LongAdder::doubleValue)
+                .description("Количество перезагрузок снимка справочников")
+                .register(registry);
+    }
+
+    /**
+     * Метод получения текущего снимка с загрузкой при первом обращении.
+     *
+     * @return Снимок справочников.
+     */
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            loadLock.lock();
+            try {
+                if (snapshot.get() == null) {
+                    refresh();
+                }
+                current = snapshot.get();
+            } finally {
+                loadLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private void bindLookups(MeterRegistry registry, String type, String result, LongAdder counter) {
+        FunctionCounter.builder("filmorate.reference.cache.lookups", counter, LongAdder::doubleValue)
+                .description("Количество обращений к кэшу справочников")
+                .tag("type", type)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Неизменяемый снимок справочников.
+     *
+     * @param genres  жанры по id.
+     * @param ratings рейтинги по id.
+     */
+    private record Snapshot(Map<Long, Genre> genres, Map<Long, Rating> ratings) {
+    }
+}
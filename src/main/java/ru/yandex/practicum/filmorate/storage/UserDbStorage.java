@@ -1,22 +1,42 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Primary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.monitoring.CacheLookupEvent;
 import ru.yandex.practicum.filmorate.storage.mappers.UserFriendsExtractor;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Реализация репозитория работы с пользователями с хранением в базе данных.
@@ -25,20 +45,28 @@ import java.util.stream.Collectors;
  * @version 1.0
  */
 @Repository
-@Primary
+@Profile("!in-memory")
 @Slf4j
-public class UserDbStorage extends BaseRepository<User> implements UserStorage {
+public class UserDbStorage extends BaseRepository<User> implements UserStorage, MeterBinder {
     private static final String INSERT_QUERY = "INSERT INTO users (email, login, name, birthday)" +
             "VALUES (:email, :login, :name, :birthday)";
     private static final String UPDATE_QUERY = "UPDATE users SET email = :email, login = :login, name = :name, " +
             "birthday = :birthday WHERE user_id = :userId";
     private static final String FIND_ALL_QUERY = "SELECT * FROM users";
+    private static final String FIND_PAGE_QUERY = "SELECT * FROM users WHERE user_id > :afterId " +
+            "ORDER BY user_id LIMIT :limit";
+    private static final String COUNT_BY_IDS_QUERY = "SELECT COUNT(*) FROM users WHERE user_id IN (:ids)";
+    private static final String FIND_ID_BY_LOGIN_QUERY = "SELECT user_id FROM users WHERE login = :login";
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM users WHERE user_id = :userId";
+    private static final String FIND_BY_IDS_QUERY = "SELECT * FROM users WHERE user_id IN (:ids) ORDER BY user_id";
     private static final String ADD_FRIEND = "MERGE INTO friends (user_id, friend_id) VALUES (:userId, :friendId)";
     private static final String DEL_FRIEND = "DELETE FROM friends WHERE user_id = :userId AND friend_id = :friendId";
     private static final String FIND_ALL_FRIENDS_ID_BY_SET = "SELECT user_id, friend_id FROM friends " +
             "WHERE user_id in (:userIdSet)";
     private static final String FIND_ALL_FRIENDS_ID = "SELECT user_id, friend_id FROM friends";
+    private static final String FIND_ALL_FRIENDS_ID_ORDERED = "SELECT user_id, friend_id FROM friends " +
+            "ORDER BY user_id, friend_id";
+    private static final String FIND_MAX_USER_ID = "SELECT COALESCE(MAX(user_id), 0) FROM users";
     private static final String FIND_ALL_FRIENDS_ID_BY_USERID = "SELECT friend_id FROM friends WHERE user_id = :userId";
     private static final String FIND_ALL_FRIENDS_BY_USERID = "SELECT u.user_id, u.email, u.login, u.name, u.birthday " +
             "FROM friends f " +
@@ -50,12 +78,83 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
             "INNER JOIN friends f2 ON f.friend_id = f2.friend_id " +
             "WHERE f.user_id = :userId " +
             "AND f2.user_id = :otherId";
+    private static final String COUNT_COMMON_FRIENDS = "SELECT COUNT(*) " +
+            "FROM friends f " +
+            "INNER JOIN friends f2 ON f.friend_id = f2.friend_id " +
+            "WHERE f.user_id = :userId " +
+            "AND f2.user_id = :otherId";
+    private static final int FRIEND_LOCK_STRIPES = 64;
 
     @Autowired
     private UserFriendsExtractor friendsExtractor;
 
-    public UserDbStorage(NamedParameterJdbcOperations jdbc, RowMapper<User> mapper) {
+    /**
+     * Фильтр id, существование которых уже подтверждено.
+     */
+    private final LiveIdFilter liveIds;
+
+    /**
+     * Кэш списков друзей в виде битовых карт для поиска общих друзей.
+     */
+    private final FriendAdjacency friendsCache = new FriendAdjacency();
+
+    /**
+     * Время загрузки списка друзей в кэш (System.nanoTime) по id пользователя.
+     */
+    private final Map<Long, Long> friendsLoadedAt = new ConcurrentHashMap<>();
+
+    /**
+     * Загрузки списков друзей в кэш в порядке времени загрузки. С головы снимаются истекшие записи
+     * и, при заполненном кэше, самые старые. Запись, чье время уже не совпадает с friendsLoadedAt,
+     * устарела и просто отбрасывается.
+     */
+    private final Queue<LoadedFriends> friendsLoadOrder = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Номера изменений друзей по полосам блокировок {@link #friendLocks}. Список, прочитанный до изменения,
+     * в кэш не кладется.
+     */
+    private final AtomicLongArray friendsEpochs = new AtomicLongArray(FRIEND_LOCK_STRIPES);
+
+    private final boolean friendsCacheEnabled;
+    private final long friendsCacheTtlNanos;
+    private final int friendsCacheMaxUsers;
+
+    private final LongAdder friendsCacheHits = new LongAdder();
+    private final LongAdder friendsCacheMisses = new LongAdder();
+
+    /**
+     * Снимок всей таблицы FRIENDS в формате CSR для подбора возможных друзей.
+     * Загружается при первом обращении и периодически, между загрузками обновляется после каждого изменения.
+     */
+    private final FriendGraph friendGraph;
+
+    /**
+     * Блокировка полной загрузки графа друзей.
+     */
+    private final Lock friendGraphLoadLock = new ReentrantLock();
+
+    /**
+     * Блокировки изменения друзей по остатку от деления id пользователя: запись, перечитывание списка
+     * и замена его в графе для одного пользователя идут по очереди.
+     */
+    private final Lock[] friendLocks = IntStream.range(0, FRIEND_LOCK_STRIPES)
+            .mapToObj(i -> new ReentrantLock())
+            .toArray(Lock[]::new);
+
+    public UserDbStorage(NamedParameterJdbcOperations jdbc, RowMapper<User> mapper,
+                         @Value("${filmorate.id-filter.enabled:true}") boolean idFilterEnabled,
+                         @Value("${filmorate.friends-cache.enabled:true}") boolean friendsCacheEnabled,
+                         @Value("${filmorate.friends-cache.ttl:PT10S}") Duration friendsCacheTtl,
+                         @Value("${filmorate.friends-cache.max-users:10000}") int friendsCacheMaxUsers,
+                         @Value("${filmorate.friend-graph.compact-threshold:4096}") int friendGraphCompactThreshold,
+                         @Value("${filmorate.friend-graph.parallel-threshold:200000}") int friendGraphParallelThreshold) {
         super(jdbc, mapper);
+        liveIds = new LiveIdFilter("user", idFilterEnabled);
+        this.friendsCacheEnabled = friendsCacheEnabled;
+        this.friendsCacheTtlNanos = friendsCacheTtl.toNanos();
+        this.friendsCacheMaxUsers = friendsCacheMaxUsers;
+        this.friendGraph = new FriendGraph(friendGraphCompactThreshold, friendGraphParallelThreshold);
     }
 
     /**
@@ -78,6 +177,26 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
         return users;
     }
 
+    /**
+     * Метод получения страницы пользователей по возрастанию id (keyset-пагинация).
+     * Друзья подгружаются только для пользователей страницы.
+     *
+     * @param afterId id последнего пользователя предыдущей страницы (0 для первой страницы).
+     * @param limit   размер страницы.
+     * @return Список пользователей страницы.
+     */
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        log.info("User findPage. afterId = " + afterId + ", limit = " + limit);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("afterId", afterId);
+        params.addValue("limit", limit);
+
+        List<User> users = jdbc.query(FIND_PAGE_QUERY, params, mapper);
+
+        return getFriendsOfFriends(users);
+    }
+
     /**
      * Метод получения данных по конкретному пользователю.
      *
@@ -102,6 +221,43 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
         return foundUser.get();
     }
 
+    /**
+     * Метод проверки существования пользователя по первичному ключу без загрузки данных.
+     *
+     * @param userId проверяемый id.
+     * @return true, если запись существует.
+     */
+    @Override
+    public boolean exists(long userId) {
+        return exists(liveIds, COUNT_BY_IDS_QUERY, userId);
+    }
+
+    /**
+     * Метод проверки существования всех указанных записей одним запросом.
+     *
+     * @param ids проверяемые id.
+     * @return true, если существуют все записи.
+     */
+    @Override
+    public boolean existsAll(Collection<Long> ids) {
+        return existsAll(liveIds, COUNT_BY_IDS_QUERY, ids);
+    }
+
+    /**
+     * Метод поиска id пользователя по логину. Поиск идет по уникальному индексу USERS.LOGIN.
+     *
+     * @param login логин для поиска.
+     * @return id пользователя с таким логином, если он есть.
+     */
+    @Override
+    public Optional<Long> findIdByLogin(String login) {
+        log.info("User findIdByLogin. login = " + login);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("login", login);
+
+        return jdbc.queryForList(FIND_ID_BY_LOGIN_QUERY, params, Long.class).stream().findFirst();
+    }
+
     /**
      * Метод добавления пользователя.
      *
@@ -118,8 +274,17 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
         params.addValue("name", newUser.getName());
         params.addValue("birthday", newUser.getBirthday());
 
-        long id = insert(INSERT_QUERY, params);
+        // Единственный уникальный ключ USERS, кроме генерируемого id, - LOGIN, поэтому нарушение уникальности
+        // означает, что логин занят параллельным запросом.
+        long id;
+        try {
+            id = insert(INSERT_QUERY, params);
+        } catch (DuplicateKeyException e) {
+            log.error("User create. Login \"" + newUser.getLogin() + "\" is already used.");
+            throw new ValidationException(LOGIN_USED_MESSAGE);
+        }
         newUser.setId(id);
+        liveIds.add(id);
 
         return newUser;
     }
@@ -141,7 +306,12 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
         params.addValue("birthday", user.getBirthday());
         params.addValue("userId", user.getId());
 
-        update(UPDATE_QUERY, params);
+        try {
+            update(UPDATE_QUERY, params);
+        } catch (DuplicateKeyException e) {
+            log.error("User update. Login \"" + user.getLogin() + "\" is already used.");
+            throw new ValidationException(LOGIN_USED_MESSAGE);
+        }
 
         return user;
     }
@@ -157,13 +327,7 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
     @Override
     public List<Long> addFriend(long userId, long friendId, boolean isRecursive) {
         log.info("User addFriend. userId = " + userId + ", friendId = " + friendId + ", isRecursive = " + isRecursive);
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("userId", userId);
-        params.addValue("friendId", friendId);
-
-        jdbc.update(ADD_FRIEND, params);
-
-        return jdbc.queryForList(FIND_ALL_FRIENDS_ID_BY_USERID, params, Long.class);
+        return changeFriend(ADD_FRIEND, userId, friendId);
     }
 
     /**
@@ -178,13 +342,7 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
     public List<Long> deleteFriend(long userId, long friendId, boolean isRecursive) {
         log.info("User deleteFriend. userId = " + userId + ", friendId = " + friendId + ", isRecursive = "
                 + isRecursive);
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("userId", userId);
-        params.addValue("friendId", friendId);
-
-        jdbc.update(DEL_FRIEND, params);
-
-        return jdbc.queryForList(FIND_ALL_FRIENDS_ID_BY_USERID, params, Long.class);
+        return changeFriend(DEL_FRIEND, userId, friendId);
     }
 
     /**
@@ -207,6 +365,8 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
 
     /**
      * Метод получения друзей пользователя, общих с другим пользователем.
+     * Id общих друзей вычисляются пересечением битовых карт из кэша, из БД читаются только сами общие друзья.
+     * Если кэш выключен или переполнен, общие друзья ищутся соединением FRIENDS в БД.
      *
      * @param userId  пользователь, по которому необходимо вывести друзей.
      * @param otherId другой пользователь, для поиска общих друзей с ним.
@@ -219,12 +379,240 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
         params.addValue("userId", userId);
         params.addValue("otherId", otherId);
 
-        List<User> friends = jdbc.query(FIND_COMMON_FRIENDS, params, mapper);
+        List<Long> commonIds = cacheFriends(userId) && cacheFriends(otherId)
+                ? friendsCache.getCommon(userId, otherId) : null;
+        List<User> friends;
+        if (commonIds == null) {
+            friends = jdbc.query(FIND_COMMON_FRIENDS, params, mapper);
+        } else if (commonIds.isEmpty()) {
+            return List.of();
+        } else {
+            params.addValue("ids", commonIds);
+            friends = jdbc.query(FIND_BY_IDS_QUERY, params, mapper);
+        }
         friends = getFriendsOfFriends(friends);
 
         return friends;
     }
 
+    /**
+     * Метод получения количества общих друзей двух пользователей.
+     * Из кэша количество считается по битовым картам без построения списка.
+     *
+     * @param userId  пользователь для обработки.
+     * @param otherId другой пользователь.
+     * @return Количество общих друзей.
+     */
+    @Override
+    public int countCommonFriends(long userId, long otherId) {
+        log.info("User countCommonFriends. userId = " + userId + ", otherId = " + otherId);
+        int count = cacheFriends(userId) && cacheFriends(otherId) ? friendsCache.countCommon(userId, otherId) : -1;
+        if (count >= 0) {
+            return count;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("userId", userId);
+        params.addValue("otherId", otherId);
+
+        return jdbc.queryForObject(COUNT_COMMON_FRIENDS, params, Integer.class);
+    }
+
+    /**
+     * Метод подбора возможных друзей по графу друзей в памяти: друзья друзей, которые еще не друзья
+     * пользователя, по убыванию количества общих друзей. Из БД читаются только сами предложенные пользователи.
+     *
+     * @param userId пользователь для обработки.
+     * @param limit  максимальное количество предложений.
+     * @return Список предлагаемых пользователей.
+     */
+    @Override
+    public List<User> getSuggestions(long userId, int limit) {
+        log.info("User getSuggestions. userId = " + userId + ", limit = " + limit);
+        if (!friendGraph.isLoaded()) {
+            friendGraphLoadLock.lock();
+            try {
+                if (!friendGraph.isLoaded()) {
+                    reloadFriendGraph();
+                }
+            } finally {
+                friendGraphLoadLock.unlock();
+            }
+        }
+        List<Long> suggestedIds = friendGraph.suggest(userId, limit);
+        if (suggestedIds.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("ids", suggestedIds);
+        Map<Long, User> usersById = jdbc.query(FIND_BY_IDS_QUERY, params, mapper).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<User> suggestions = suggestedIds.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return getFriendsOfFriends(suggestions);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        liveIds.bindTo(registry);
+        bindFriendsCacheLookups(registry, "hit", friendsCacheHits);
+        bindFriendsCacheLookups(registry, "miss", friendsCacheMisses);
+        Gauge.builder("filmorate.friends.cache.size", friendsLoadedAt, Map::size)
+                .description("Количество пользователей, чьи друзья лежат в кэше")
+                .register(registry);
+    }
+
+    /**
+     * Метод полной перезагрузки графа друзей из таблицы FRIENDS. Подбор друзей до замены идет
+     * по прежнему снимку, изменения, сделанные во время загрузки, переносятся в новый снимок.
+     */
+    public void reloadFriendGraph() {
+        friendGraphLoadLock.lock();
+        try {
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            long maxUserId = jdbc.queryForObject(FIND_MAX_USER_ID, params, Long.class);
+            FriendGraph.Builder builder = friendGraph.startLoad(maxUserId);
+            try {
+                jdbc.query(FIND_ALL_FRIENDS_ID_ORDERED, params,
+                        (RowCallbackHandler) rs -> builder.add(rs.getLong("user_id"), rs.getLong("friend_id")));
+            } catch (RuntimeException e) {
+                friendGraph.cancelLoad();
+                throw e;
+            }
+            friendGraph.finishLoad(builder);
+            log.info("User reloadFriendGraph. maxUserId = " + maxUserId);
+        } finally {
+            friendGraphLoadLock.unlock();
+        }
+    }
+
+    private void bindFriendsCacheLookups(MeterRegistry registry, String result, LongAdder counter) {
+        FunctionCounter.builder("filmorate.friends.cache.lookups", counter, LongAdder::doubleValue)
+                .description("Количество обращений к кэшу друзей")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Метод загрузки списка друзей пользователя в кэш, если его там нет или он устарел.
+     * Перед загрузкой из кэша снимаются истекшие записи, а при заполненном кэше - самые старые.
+     * Прочитанный список кладется в кэш, только если за время чтения друзья пользователей его полосы
+     * не менялись: иначе в кэше на весь срок жизни остался бы список до изменения.
+     *
+     * @param userId пользователь для обработки.
+     * @return true, если список друзей пользователя есть в кэше.
+     */
+    private boolean cacheFriends(long userId) {
+        if (!friendsCacheEnabled) {
+            return false;
+        }
+        long now = System.nanoTime();
+        Long loadedAt = friendsLoadedAt.get(userId);
+        if (loadedAt != null && now - loadedAt < friendsCacheTtlNanos) {
+            friendsCacheHits.increment();
+            CacheLookupEvent.emit("friends", userId, true);
+            return true;
+        }
+        friendsCacheMisses.increment();
+        CacheLookupEvent.emit("friends", userId, false);
+        expireFriends(now);
+
+        int stripe = Math.floorMod(userId, FRIEND_LOCK_STRIPES);
+        long epoch = friendsEpochs.get(stripe);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("userId", userId);
+        List<Long> friendIds = jdbc.queryForList(FIND_ALL_FRIENDS_ID_BY_USERID, params, Long.class);
+
+        Lock lock = friendLocks[stripe];
+        lock.lock();
+        try {
+            if (friendsEpochs.get(stripe) != epoch) {
+                log.debug("cacheFriends. Friends changed while loading, userId = " + userId);
+                return false;
+            }
+            friendsCache.put(userId, friendIds);
+            friendsLoadedAt.put(userId, now);
+        } catch (IllegalArgumentException e) {
+            log.warn("cacheFriends. " + e.getMessage());
+            return false;
+        } finally {
+            lock.unlock();
+        }
+        friendsLoadOrder.add(new LoadedFriends(userId, now));
+        return true;
+    }
+
+    /**
+     * Метод снятия с головы очереди загрузок истекших записей, а при заполненном кэше - самых старых.
+     * Каждая запись снимается один раз, поэтому стоимость снятия распределяется по загрузкам.
+     *
+     * @param now текущее время (System.nanoTime).
+     */
+    private void expireFriends(long now) {
+        LoadedFriends eldest;
+        while ((eldest = friendsLoadOrder.peek()) != null && (now - eldest.loadedAt() >= friendsCacheTtlNanos
+                || friendsLoadedAt.size() >= friendsCacheMaxUsers)) {
+            if (!friendsLoadOrder.remove(eldest)) {
+                continue;
+            }
+            Lock lock = friendLocks[Math.floorMod(eldest.userId(), FRIEND_LOCK_STRIPES)];
+            lock.lock();
+            try {
+                if (friendsLoadedAt.remove(eldest.userId(), eldest.loadedAt())) {
+                    friendsCache.remove(eldest.userId());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Метод удаления списка друзей пользователя из кэша. Вызывается под блокировкой пользователя
+     * после записи в FRIENDS и сдвигает номер изменений его полосы, чтобы параллельная загрузка,
+     * прочитавшая список до записи, не вернула его в кэш.
+     *
+     * @param userId пользователь, чьи друзья изменились.
+     */
+    private void evictFriends(long userId) {
+        friendsEpochs.incrementAndGet(Math.floorMod(userId, FRIEND_LOCK_STRIPES));
+        friendsLoadedAt.remove(userId);
+        friendsCache.remove(userId);
+    }
+
+    /**
+     * Метод изменения дружбы под блокировкой пользователя: запись в FRIENDS, перечитывание списка друзей
+     * и замена его в графе друзей. Без блокировки два параллельных изменения могли бы заменить список
+     * в обратном порядке, и граф хранил бы устаревший список до следующей полной загрузки.
+     * Изменения выполняются в режиме автофиксации, вызывающие транзакцию вокруг них не открывают.
+     *
+     * @param query    запрос добавления или удаления друга.
+     * @param userId   пользователь, чьи друзья меняются.
+     * @param friendId друг.
+     * @return Список id друзей пользователя после изменения.
+     */
+    private List<Long> changeFriend(String query, long userId, long friendId) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("userId", userId);
+        params.addValue("friendId", friendId);
+
+        Lock lock = friendLocks[Math.floorMod(userId, FRIEND_LOCK_STRIPES)];
+        lock.lock();
+        try {
+            jdbc.update(query, params);
+            evictFriends(userId);
+
+            List<Long> friendIds = jdbc.queryForList(FIND_ALL_FRIENDS_ID_BY_USERID, params, Long.class);
+            friendGraph.replace(userId, friendIds);
+            return friendIds;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Метод заполнения множества id друзей {@link User#setFriendsUserId(Set)} у заданного списка.
      * Обычно это друзья друзей.
@@ -263,4 +651,13 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
             user.setName(user.getLogin());
         }
     }
+
+    /**
+     * Загрузка списка друзей пользователя в кэш.
+     *
+     * @param userId   id пользователя.
+     * @param loadedAt время загрузки (System.nanoTime).
+     */
+    private record LoadedFriends(long userId, long loadedAt) {
+    }
 }
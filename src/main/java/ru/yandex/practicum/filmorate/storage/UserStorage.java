@@ -4,12 +4,26 @@ import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface UserStorage {
+    /**
+     * Сообщение о занятом логине.
+     */
+    String LOGIN_USED_MESSAGE = "Этот логин уже используется.";
+
     Collection<User> findAll();
 
+    List<User> findPage(long afterId, int limit);
+
     User findById(long userId);
 
+    boolean exists(long userId);
+
+    boolean existsAll(Collection<Long> ids);
+
+    Optional<Long> findIdByLogin(String login);
+
     User create(User newUser);
 
     User update(User user);
@@ -21,4 +35,8 @@ public interface UserStorage {
     List<User> getAllFriends(long userId);
 
     List<User> getCommonFriends(long userId, long otherId);
+
+    int countCommonFriends(long userId, long otherId);
+
+    List<User> getSuggestions(long userId, int limit);
 }
@@ -1,20 +1,23 @@
 package ru.yandex.practicum.filmorate.storage.mappers;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.LikeSet;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 
 @Component
+@RequiredArgsConstructor
 public class FilmExtractor implements ResultSetExtractor<Film> {
+    private final ReferenceDataCache referenceDataCache;
+
     @Override
     public Film extractData(ResultSet rs)
             throws SQLException, DataAccessException {
@@ -23,10 +26,10 @@ public class FilmExtractor implements ResultSetExtractor<Film> {
             if (film == null) {
                 film = Film.builder()
                         .id(rs.getLong("film_id"))
-                        .name(rs.getString("film_name"))
+                        .name(rs.getString("name"))
                         .description(rs.getString("description"))
                         .duration(rs.getInt("duration"))
-                        .likesUserId(new HashSet<>())
+                        .likesUserId(new LikeSet())
                         .genres(new LinkedHashSet<>())
                         .build();
             }
@@ -34,15 +37,14 @@ public class FilmExtractor implements ResultSetExtractor<Film> {
             Timestamp releaseDate = rs.getTimestamp("release_date");
             film.setReleaseDate(releaseDate.toLocalDateTime().toLocalDate());
 
-            long ratingId = rs.getLong("rating_id");
+            long ratingId = rs.getLong("mpa");
             if (ratingId > 0 && film.getMpa() == null) {
-                film.setMpa(new Rating(ratingId, rs.getString("rating_name")));
+                film.setMpa(referenceDataCache.getRating(ratingId));
             }
 
             long genreId = rs.getLong("genre_id");
             if (genreId > 0) {
-                Genre genre = new Genre(genreId, rs.getString("genre_name"));
-                film.getGenres().add(genre);
+                film.getGenres().add(referenceDataCache.getGenre(genreId));
             }
         }
         return film;
@@ -1,9 +1,11 @@
 package ru.yandex.practicum.filmorate.storage.mappers;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -12,7 +14,10 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 
 @Component
+@RequiredArgsConstructor
 public class FilmGenresExtractor implements ResultSetExtractor<Map<Long, LinkedHashSet<Genre>>> {
+    private final ReferenceDataCache referenceDataCache;
+
     @Override
     public Map<Long, LinkedHashSet<Genre>> extractData(ResultSet rs)
             throws SQLException, DataAccessException {
@@ -20,10 +25,7 @@ public class FilmGenresExtractor implements ResultSetExtractor<Map<Long, LinkedH
         while (rs.next()) {
             Long filmId = rs.getLong("film_id");
             data.putIfAbsent(filmId, new LinkedHashSet<>());
-            Genre genre = new Genre(0L, "");
-            genre.setId(rs.getLong("genre_id"));
-            genre.setName(rs.getString("genre_name"));
-            data.get(filmId).add(genre);
+            data.get(filmId).add(referenceDataCache.getGenre(rs.getLong("genre_id")));
         }
         return data;
     }
@@ -3,24 +3,24 @@ package ru.yandex.practicum.filmorate.storage.mappers;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.LikeSet;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 
 @Component
-public class FilmLikesExtractor implements ResultSetExtractor<Map<Long, HashSet<Long>>> {
+public class FilmLikesExtractor implements ResultSetExtractor<Map<Long, LikeSet>> {
     @Override
-    public Map<Long, HashSet<Long>> extractData(ResultSet rs)
+    public Map<Long, LikeSet> extractData(ResultSet rs)
             throws SQLException, DataAccessException {
-        Map<Long, HashSet<Long>> data = new HashMap<>();
+        Map<Long, LikeSet> data = new HashMap<>();
         while (rs.next()) {
             Long filmId = rs.getLong("film_id");
-            data.putIfAbsent(filmId, new HashSet<>());
-            data.get(filmId).add(rs.getLong("user_id"));
+            data.computeIfAbsent(filmId, id -> new LikeSet()).addId(rs.getLong("user_id"));
         }
+        data.values().forEach(LikeSet::trimToSize);
         return data;
     }
 }
@@ -1,15 +1,20 @@
 package ru.yandex.practicum.filmorate.storage.mappers;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 
 @Component
+@RequiredArgsConstructor
 public class FilmRowMapper implements RowMapper<Film> {
+    private final ReferenceDataCache referenceDataCache;
+
     @Override
     public Film mapRow(ResultSet resultSet, int rowNum) throws SQLException {
         Film film = Film.builder()
@@ -17,11 +22,17 @@ public class FilmRowMapper implements RowMapper<Film> {
                 .name(resultSet.getString("name"))
                 .description(resultSet.getString("description"))
                 .duration(resultSet.getInt("duration"))
+                .likesCount(resultSet.getInt("likes_count"))
                 .build();
 
         Timestamp releaseDate = resultSet.getTimestamp("release_date");
         film.setReleaseDate(releaseDate.toLocalDateTime().toLocalDate());
 
+        long ratingId = resultSet.getLong("mpa");
+        if (ratingId > 0) {
+            film.setMpa(referenceDataCache.getRating(ratingId));
+        }
+
         return film;
     }
 }
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.storage.mappers;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.function.Consumer;
+
+/**
+ * Обработчик упорядоченного по film_id курсора: собирает фильм из строк с его жанрами
+ * и передает получателю, как только начинается следующий фильм.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public class FilmStreamRowHandler implements RowCallbackHandler {
+    /**
+     * Получатель собранных фильмов.
+     */
+    private final Consumer<Film> consumer;
+
+    /**
+     * Кэш справочников для заполнения рейтинга и жанров.
+     */
+    private final ReferenceDataCache referenceDataCache;
+
+    /**
+     * Фильм, строки которого обрабатываются в данный момент.
+     */
+    private Film film;
+
+    public FilmStreamRowHandler(Consumer<Film> consumer, ReferenceDataCache referenceDataCache) {
+        this.consumer = consumer;
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        long filmId = rs.getLong("film_id");
+        if (film == null || film.getId() != filmId) {
+            flush();
+            film = Film.builder()
+                    .id(filmId)
+                    .name(rs.getString("name"))
+                    .description(rs.getString("description"))
+                    .releaseDate(rs.getDate("release_date").toLocalDate())
+                    .duration(rs.getInt("duration"))
+                    .likesCount(rs.getInt("likes_count"))
+                    .genres(new LinkedHashSet<>())
+                    .build();
+
+            long ratingId = rs.getLong("mpa");
+            if (ratingId > 0) {
+                film.setMpa(referenceDataCache.getRating(ratingId));
+            }
+        }
+
+        long genreId = rs.getLong("genre_id");
+        if (genreId > 0) {
+            film.getGenres().add(referenceDataCache.getGenre(genreId));
+        }
+    }
+
+    /**
+     * Метод передачи получателю последнего собранного фильма. Вызывается после обхода курсора.
+     */
+    public void flush() {
+        if (film != null) {
+            consumer.accept(film);
+            film = null;
+        }
+    }
+}
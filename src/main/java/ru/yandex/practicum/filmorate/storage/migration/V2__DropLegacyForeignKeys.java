@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Миграция удаления внешних ключей, накопленных прежней инициализацией схемы при каждом запуске.
+ * Именованные внешние ключи создаются заново миграцией V6.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Component
+@Slf4j
+@SuppressWarnings("checkstyle:TypeName")
+public class V2__DropLegacyForeignKeys extends BaseJavaMigration {
+    private static final String FIND_FOREIGN_KEYS_QUERY = "SELECT table_name, constraint_name " +
+            "FROM information_schema.table_constraints " +
+            "WHERE constraint_type = 'FOREIGN KEY' AND table_schema = SCHEMA()";
+
+    /**
+     * Метод удаления всех внешних ключей текущей схемы.
+     *
+     * @param context контекст миграции Flyway.
+     */
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        List<Map<String, Object>> foreignKeys = jdbc.queryForList(FIND_FOREIGN_KEYS_QUERY);
+        for (Map<String, Object> foreignKey : foreignKeys) {
+            jdbc.execute("ALTER TABLE \"" + foreignKey.get("TABLE_NAME") + "\" DROP CONSTRAINT \""
+                    + foreignKey.get("CONSTRAINT_NAME") + "\"");
+        }
+        log.info("V2__DropLegacyForeignKeys. Foreign keys dropped: " + foreignKeys.size());
+    }
+}
@@ -47,17 +47,3 @@ CREATE TABLE IF NOT EXISTS "FILM_LIKES" (
   "USER_ID" BIGINT NOT NULL,
   CONSTRAINT FILM_LIKES_PK PRIMARY KEY ("FILM_ID", "USER_ID")
 );
-
-ALTER TABLE "FILM_LIKES" ADD FOREIGN KEY ("FILM_ID") REFERENCES "FILMS" ("FILM_ID");
-
-ALTER TABLE "FILM_LIKES" ADD FOREIGN KEY ("USER_ID") REFERENCES "USERS" ("USER_ID");
-
-ALTER TABLE "FILMS" ADD FOREIGN KEY ("MPA") REFERENCES "RATINGS" ("RATING_ID");
-
-ALTER TABLE "FILM_GENRES" ADD FOREIGN KEY ("FILM_ID") REFERENCES "FILMS" ("FILM_ID");
-
-ALTER TABLE "FILM_GENRES" ADD FOREIGN KEY ("GENRE_ID") REFERENCES "GENRES" ("GENRE_ID");
-
-ALTER TABLE "FRIENDS" ADD FOREIGN KEY ("USER_ID") REFERENCES "USERS" ("USER_ID");
-
-ALTER TABLE "FRIENDS" ADD FOREIGN KEY ("FRIEND_ID") REFERENCES "USERS" ("USER_ID");
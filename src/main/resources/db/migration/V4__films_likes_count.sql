@@ -0,0 +1,5 @@
+ALTER TABLE "FILMS" ADD COLUMN IF NOT EXISTS "LIKES_COUNT" INTEGER DEFAULT 0 NOT NULL;
+
+UPDATE "FILMS" f SET "LIKES_COUNT" = (SELECT COUNT(*) FROM "FILM_LIKES" fl WHERE fl."FILM_ID" = f."FILM_ID");
+
+CREATE INDEX IF NOT EXISTS "FILMS_LIKES_COUNT_IDX" ON "FILMS" ("LIKES_COUNT" DESC, "FILM_ID");
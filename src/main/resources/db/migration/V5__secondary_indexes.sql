@@ -0,0 +1,7 @@
+CREATE INDEX IF NOT EXISTS "FILM_LIKES_USER_IDX" ON "FILM_LIKES" ("USER_ID");
+
+CREATE INDEX IF NOT EXISTS "FRIENDS_FRIEND_IDX" ON "FRIENDS" ("FRIEND_ID");
+
+CREATE INDEX IF NOT EXISTS "FILMS_MPA_IDX" ON "FILMS" ("MPA");
+
+CREATE INDEX IF NOT EXISTS "FILM_GENRES_GENRE_IDX" ON "FILM_GENRES" ("GENRE_ID");
@@ -0,0 +1,20 @@
+ALTER TABLE "FILM_LIKES" ADD CONSTRAINT IF NOT EXISTS "FILM_LIKES_FILM_FK"
+  FOREIGN KEY ("FILM_ID") REFERENCES "FILMS" ("FILM_ID");
+
+ALTER TABLE "FILM_LIKES" ADD CONSTRAINT IF NOT EXISTS "FILM_LIKES_USER_FK"
+  FOREIGN KEY ("USER_ID") REFERENCES "USERS" ("USER_ID");
+
+ALTER TABLE "FILMS" ADD CONSTRAINT IF NOT EXISTS "FILMS_MPA_FK"
+  FOREIGN KEY ("MPA") REFERENCES "RATINGS" ("RATING_ID");
+
+ALTER TABLE "FILM_GENRES" ADD CONSTRAINT IF NOT EXISTS "FILM_GENRES_FILM_FK"
+  FOREIGN KEY ("FILM_ID") REFERENCES "FILMS" ("FILM_ID");
+
+ALTER TABLE "FILM_GENRES" ADD CONSTRAINT IF NOT EXISTS "FILM_GENRES_GENRE_FK"
+  FOREIGN KEY ("GENRE_ID") REFERENCES "GENRES" ("GENRE_ID");
+
+ALTER TABLE "FRIENDS" ADD CONSTRAINT IF NOT EXISTS "FRIENDS_USER_FK"
+  FOREIGN KEY ("USER_ID") REFERENCES "USERS" ("USER_ID");
+
+ALTER TABLE "FRIENDS" ADD CONSTRAINT IF NOT EXISTS "FRIENDS_FRIEND_FK"
+  FOREIGN KEY ("FRIEND_ID") REFERENCES "USERS" ("USER_ID");
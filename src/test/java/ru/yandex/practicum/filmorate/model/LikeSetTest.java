@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@DisplayName("LikeSet")
+class LikeSetTest {
+    private static final int FOOTPRINT_LIKES = 100_000;
+
+    @Test
+    @DisplayName("Должен хранить id по возрастанию без повторов")
+    void should_keep_sorted_unique_ids() {
+        LikeSet likes = new LikeSet();
+        assertTrue(likes.add(5L), "Лайк 5 не добавлен.");
+        assertTrue(likes.add(1L), "Лайк 1 не добавлен.");
+        assertTrue(likes.add(1L << 40), "Длинный id не добавлен.");
+        assertTrue(likes.add(3L), "Лайк 3 не добавлен.");
+        assertFalse(likes.add(3L), "Повторный лайк не должен добавляться.");
+
+        assertEquals(List.of(1L, 3L, 5L, 1L << 40), List.copyOf(likes), "Неверный порядок id.");
+        assertTrue(likes.contains(1L << 40), "Длинный id не найден.");
+        assertFalse(likes.contains(4L), "Лайка 4 нет.");
+        assertEquals(Set.of(1L, 3L, 5L, 1L << 40), likes, "Множество должно быть равно HashSet.");
+
+        assertTrue(likes.remove(3L), "Лайк 3 не удален.");
+        assertFalse(likes.remove(3L), "Лайка 3 уже нет.");
+        Iterator<Long> iterator = likes.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(List.of(5L, 1L << 40), List.copyOf(likes), "Неверное удаление через итератор.");
+    }
+
+    @Test
+    @DisplayName("Должен сериализоваться в JSON так же, как HashSet")
+    void should_keep_json_format() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        LikeSet likes = new LikeSet(List.of(3L, 1L, 2L));
+
+        assertEquals("[1,2,3]", objectMapper.writeValueAsString(likes), "Неверный JSON.");
+        assertEquals(likes, objectMapper.readValue("[2,3,1]", LikeSet.class), "Неверное чтение JSON.");
+    }
+
+    @Test
+    @DisplayName("Должен занимать в памяти хотя бы в 5 раз меньше HashSet<Long>")
+    void should_take_less_heap_than_hash_set() {
+        // Порог 5 раз рассчитан на раскладку 64-битной HotSpot по умолчанию: сжатые ссылки и выравнивание 8 байт.
+        assumeTrue(VM.current().sizeOfField("oop") == 4 && VM.current().objectAlignment() == 8,
+                "Сравнение размеров рассчитано на сжатые ссылки и выравнивание 8 байт.");
+        Random random = new Random(42);
+        Set<Long> hashSet = new HashSet<>();
+        while (hashSet.size() < FOOTPRINT_LIKES) {
+            hashSet.add(1_000L + random.nextInt(10_000_000));
+        }
+        LikeSet likeSet = new LikeSet(hashSet);
+
+        long hashSetSize = GraphLayout.parseInstance(hashSet).totalSize();
+        long likeSetSize = GraphLayout.parseInstance(likeSet).totalSize();
+
+        assertEquals(hashSet, likeSet, "Множества должны совпадать.");
+        assertTrue(hashSetSize >= 5 * likeSetSize, "LikeSet должен быть меньше HashSet хотя бы в 5 раз. HashSet = "
+                + hashSetSize + " байт, LikeSet = " + likeSetSize + " байт.");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("AllocationFilter")
+class AllocationFilterTest {
+    private static final int ALLOCATED = 4 * 1024 * 1024;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AllocationFilter filter = new AllocationFilter(registry, true, DataSize.ofMegabytes(1));
+
+    private volatile byte[] sink;
+
+    @Test
+    @DisplayName("Должен записывать выделенную за запрос память по шаблону маршрута")
+    void should_record_allocated_bytes_by_route() throws Exception {
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+                request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/films/{id}");
+                sink = new byte[ALLOCATED];
+            }
+        };
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/films/1"), new MockHttpServletResponse(),
+                new MockFilterChain(servlet));
+        filter.doFilter(new MockHttpServletRequest("GET", "/films/2"), new MockHttpServletResponse(),
+                new MockFilterChain(servlet));
+
+        DistributionSummary summary = registry.find(AllocationFilter.ALLOCATION_SUMMARY)
+                .tag("method", "GET")
+                .tag("uri", "/films/{id}")
+                .tag("status", "200")
+                .summary();
+        assertNotNull(summary, "Распределение по шаблону маршрута не создано.");
+        assertEquals(2, summary.count(), "Неверное количество запросов.");
+        assertTrue(summary.totalAmount() >= 2.0 * ALLOCATED, "Учтена не вся выделенная память.");
+    }
+
+    @Test
+    @DisplayName("Должен группировать запросы без обработчика в один маршрут")
+    void should_group_unmatched_requests() throws Exception {
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            }
+        };
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/missing/1"), new MockHttpServletResponse(),
+                new MockFilterChain(servlet));
+        filter.doFilter(new MockHttpServletRequest("GET", "/missing/2"), new MockHttpServletResponse(),
+                new MockFilterChain(servlet));
+
+        DistributionSummary summary = registry.find(AllocationFilter.ALLOCATION_SUMMARY)
+                .tag("uri", "NOT_FOUND")
+                .summary();
+        assertNotNull(summary, "Запросы без обработчика должны попадать в маршрут NOT_FOUND.");
+        assertEquals(2, summary.count(), "Неверное количество запросов.");
+    }
+}
\ No newline at end of file
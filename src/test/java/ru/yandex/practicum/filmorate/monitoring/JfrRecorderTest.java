@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("JfrRecorder")
+class JfrRecorderTest {
+    private final JfrRecorder recorder = new JfrRecorder(Duration.ofMinutes(1), 10 * 1024 * 1024, Duration.ZERO);
+
+    @AfterEach
+    void tearDown() {
+        recorder.close();
+    }
+
+    @Test
+    @DisplayName("Должен записывать события вызовов хранилища и обращений к кэшу")
+    void should_record_application_events() throws IOException {
+        GenreStorage genreStorage = mock(GenreStorage.class);
+        when(genreStorage.findById(7)).thenReturn(new Genre(7L, "Драма"));
+        when(genreStorage.findAll()).thenReturn(List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма")));
+        AspectJProxyFactory factory = new AspectJProxyFactory(genreStorage);
+        factory.addAspect(new OperationMetricsAspect(new SimpleMeterRegistry()));
+        GenreStorage proxy = factory.getProxy();
+
+        recorder.start(null);
+        proxy.findById(7);
+        proxy.findAll();
+        CacheLookupEvent.emit("genre", 7, true);
+        Path file = recorder.stop();
+        List<RecordedEvent> events;
+        try {
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        RecordedEvent findById = find(events, "filmorate.StorageCall", "method", "findById");
+        assertEquals("storage", findById.getString("layer"), "Неверный слой вызова.");
+        assertEquals(7, findById.getLong("entityId"), "Неверный id сущности.");
+        assertEquals(1, findById.getInt("rows"), "Неверное количество записей.");
+        assertEquals("none", findById.getString("exception"), "Вызов должен быть успешным.");
+        RecordedEvent findAll = find(events, "filmorate.StorageCall", "method", "findAll");
+        assertEquals(0, findAll.getLong("entityId"), "У вызова без id сущность должна быть 0.");
+        assertEquals(2, findAll.getInt("rows"), "Неверное количество записей.");
+        RecordedEvent lookup = find(events, "filmorate.CacheLookup", "cache", "genre");
+        assertEquals(7, lookup.getLong("key"), "Неверный ключ обращения к кэшу.");
+        assertTrue(lookup.getBoolean("hit"), "Обращение должно быть попаданием.");
+    }
+
+    @Test
+    @DisplayName("Должен допускать только одну запись и ограничивать ее длительность")
+    void should_reject_invalid_recordings() {
+        assertThrows(NotFoundException.class, recorder::stop, "Без записи выгружать нечего.");
+        assertThrows(ValidationException.class, () -> recorder.start(Duration.ofMinutes(2)),
+                "Длительность больше максимальной должна отклоняться.");
+        assertThrows(ValidationException.class, () -> recorder.start(Duration.ZERO),
+                "Нулевая длительность должна отклоняться.");
+
+        assertEquals(Duration.ofSeconds(30), recorder.start(Duration.ofSeconds(30)));
+        assertThrows(ValidationException.class, () -> recorder.start(null), "Вторая запись не должна начинаться.");
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String type, String field, String value) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(type))
+                .filter(event -> value.equals(event.getString(field)))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Событие " + type + " с " + field + " = " + value
+                        + " не записано."));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("OperationMetricsAspect")
+class OperationMetricsAspectTest {
+    private SimpleMeterRegistry registry;
+    private GenreStorage genreStorage;
+    private GenreStorage proxy;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        genreStorage = mock(GenreStorage.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(genreStorage);
+        factory.addAspect(new OperationMetricsAspect(registry));
+        proxy = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Должен замерять успешные и неуспешные вызовы хранилища по методам")
+    void should_time_storage_operations() {
+        when(genreStorage.findAll()).thenReturn(List.of(new Genre(1L, "Комедия")));
+        when(genreStorage.findById(99)).thenThrow(new NotFoundException("Жанр не найден."));
+
+        proxy.findAll();
+        proxy.findAll();
+        assertThrows(NotFoundException.class, () -> proxy.findById(99));
+
+        Timer findAll = registry.find(OperationMetricsAspect.STORAGE_TIMER)
+                .tag("method", "findAll")
+                .tag("exception", "none")
+                .timer();
+        assertEquals(2, findAll.count(), "Неверное количество успешных вызовов.");
+        Timer findById = registry.find(OperationMetricsAspect.STORAGE_TIMER)
+                .tag("method", "findById")
+                .tag("exception", "NotFoundException")
+                .timer();
+        assertEquals(1, findById.count(), "Неверное количество неуспешных вызовов.");
+        assertNull(registry.find(OperationMetricsAspect.STORAGE_TIMER).tag("method", "create").timer(),
+                "Таймер не вызванного метода не должен создаваться.");
+    }
+}
\ No newline at end of file
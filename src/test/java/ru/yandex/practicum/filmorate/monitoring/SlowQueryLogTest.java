@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("SlowQueryLog")
+class SlowQueryLogTest {
+    private SlowQueryLog slowQueryLog;
+    private SlowQueryNamedParameterJdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:slowQueryLogTest;DB_CLOSE_DELAY=-1");
+        slowQueryLog = new SlowQueryLog(true, Duration.ZERO, 2, Runnable::run);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new InstrumentedDataSource(h2, slowQueryLog));
+        jdbc = new SlowQueryNamedParameterJdbcTemplate(jdbcTemplate, slowQueryLog);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS counters");
+        jdbcTemplate.execute("CREATE TABLE counters (id INT PRIMARY KEY, v INT)");
+        jdbcTemplate.update("INSERT INTO counters VALUES (1, 0)");
+    }
+
+    @Test
+    @DisplayName("Должен сохранять медленный запрос с именованными параметрами и планом")
+    void should_capture_plan_with_named_parameters() {
+        MapSqlParameterSource params = new MapSqlParameterSource("id", 1);
+        jdbc.queryForObject("SELECT v FROM counters WHERE id = :id", params, Integer.class);
+        jdbc.queryForObject("SELECT v FROM counters WHERE id = :id", params, Integer.class);
+
+        SlowQuery query = slowQueryLog.getEntries().stream()
+                .filter(entry -> entry.sql().startsWith("SELECT v"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, query.count(), "Повторы запроса должны учитываться в одной записи.");
+        assertEquals(Map.of("id", 1), query.parameters(), "Неверные параметры запроса.");
+        assertNotNull(query.plan(), "План должен быть снят.");
+        assertTrue(query.plan().contains("PRIMARY_KEY"), "План должен показывать использование индекса.");
+    }
+
+    @Test
+    @DisplayName("Не должен повторно выполнять изменяющий запрос при снятии плана")
+    void should_explain_update_without_executing_it() {
+        jdbc.update("UPDATE counters SET v = v + 1 WHERE id = :id", new MapSqlParameterSource("id", 1));
+
+        assertEquals(1, jdbc.queryForObject("SELECT v FROM counters WHERE id = :id",
+                new MapSqlParameterSource("id", 1), Integer.class), "Изменение должно выполниться один раз.");
+        List<SlowQuery> entries = slowQueryLog.getEntries();
+        assertEquals(2, entries.size(), "Кольцо должно быть ограничено.");
+        assertTrue(entries.getFirst().sql().startsWith("UPDATE"), "Неверный порядок кольца.");
+        assertTrue(entries.getFirst().plan().startsWith("UPDATE"), "План изменяющего запроса должен быть снят.");
+    }
+}
\ No newline at end of file
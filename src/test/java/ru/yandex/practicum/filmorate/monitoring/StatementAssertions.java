@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверки количества запросов к БД, выполненных блоком кода в текущем потоке.
+ * Источник данных теста должен быть обернут {@link InstrumentedDataSource}:
+ * для {@code @JdbcTest} достаточно импортировать {@link InstrumentedDataSourcePostProcessor} и {@link SlowQueryLog}.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+public final class StatementAssertions {
+    private StatementAssertions() {
+    }
+
+    /**
+     * Метод проверки, что блок выполнил не больше заданного количества запросов.
+     *
+     * @param max    допустимое количество запросов.
+     * @param action проверяемый блок.
+     * @param <T>    тип результата блока.
+     * @return Результат блока.
+     */
+    public static <T> T assertMaxStatements(int max, Supplier<T> action) {
+        StatementStats stats = StatementStats.start();
+        T result;
+        try {
+            result = action.get();
+        } finally {
+            stats.stop();
+        }
+        assertTrue(stats.getStatements() <= max, "Выполнено запросов: " + stats.getStatements()
+                + ", допустимо: " + max + ". Запросы: " + stats.getRepeated(1));
+        return result;
+    }
+
+    /**
+     * Метод проверки, что блок выполнил не больше заданного количества запросов.
+     *
+     * @param max    допустимое количество запросов.
+     * @param action проверяемый блок.
+     */
+    public static void assertMaxStatements(int max, Runnable action) {
+        assertMaxStatements(max, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.RatingDbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmExtractor;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmGenresExtractor;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmLikesExtractor;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.storage.mappers.RatingRowMapper;
+import ru.yandex.practicum.filmorate.storage.mappers.UserFriendsExtractor;
+import ru.yandex.practicum.filmorate.storage.mappers.UserRowMapper;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.practicum.filmorate.monitoring.StatementAssertions.assertMaxStatements;
+
+@JdbcTest
+@Import({FilmDbStorage.class, FilmRowMapper.class, FilmGenresExtractor.class, FilmLikesExtractor.class,
+        FilmExtractor.class, ReferenceDataCache.class, GenreDbStorage.class, GenreRowMapper.class,
+        RatingDbStorage.class, RatingRowMapper.class, UserDbStorage.class, UserRowMapper.class,
+        UserFriendsExtractor.class, SlowQueryLog.class, InstrumentedDataSourcePostProcessor.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бюджет запросов к БД")
+class StatementBudgetTest {
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final ReferenceDataCache referenceDataCache;
+
+    @BeforeEach
+    void setUp() {
+        referenceDataCache.refresh();
+    }
+
+    @Test
+    @DisplayName("Лайк должен укладываться в три запроса")
+    void should_add_like_within_budget() {
+        List<Long> likes = assertMaxStatements(3, () -> filmDbStorage.addLike(3, 2));
+
+        assertEquals(List.of(1L, 2L), likes, "Неверные лайки фильма.");
+    }
+
+    @Test
+    @DisplayName("Чтение фильмов не должно зависеть от их количества")
+    void should_read_films_without_n_plus_one() {
+        assertMaxStatements(2, () -> filmDbStorage.findById(1));
+        assertMaxStatements(2, () -> filmDbStorage.findAll());
+        StatementStats stats = StatementStats.start();
+        List<Film> films;
+        try {
+            films = filmDbStorage.getPopularFilms(10);
+        } finally {
+            stats.stop();
+        }
+
+        assertEquals(3, films.size(), "Неверное количество фильмов.");
+        assertTrue(stats.getStatements() <= 3, "Популярные фильмы должны читаться тремя запросами.");
+        assertTrue(stats.getRepeated(2).isEmpty(), "Запросы не должны повторяться по фильмам.");
+        assertEquals(3 + 5 + 6, stats.getRows(), "Неверное количество прочитанных строк.");
+    }
+
+    @Test
+    @DisplayName("Общие друзья должны читаться не больше чем двумя запросами")
+    void should_read_common_friends_within_budget() {
+        assertMaxStatements(2, () -> userDbStorage.getCommonFriends(1, 3));
+    }
+
+    @Test
+    @DisplayName("Должен считать списки IN разной длины одной формой запроса")
+    void should_group_statements_by_shape() {
+        StatementStats stats = StatementStats.start();
+        try {
+            filmDbStorage.existsAll(List.of(1L));
+            filmDbStorage.existsAll(List.of(1L, 2L));
+        } finally {
+            stats.stop();
+        }
+
+        assertEquals(Map.of("SELECT COUNT(*) FROM films WHERE film_id IN (?)", 2), stats.getRepeated(2),
+                "Запросы должны сворачиваться в одну форму.");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("BulkheadDataSource")
+class BulkheadDataSourceTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private DataSource pool;
+    private Connection connection;
+    private BulkheadDataSource bulkhead;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = mock(DataSource.class);
+        connection = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(connection);
+        bulkhead = new BulkheadDataSource(pool, 1, Duration.ofMillis(50));
+        bulkhead.bindTo(registry);
+    }
+
+    @Test
+    @DisplayName("Должен отказывать в соединении сверх разрешений и возвращать разрешение при закрытии")
+    void should_limit_concurrent_connections() throws SQLException {
+        Connection first = bulkhead.getConnection();
+        assertThrows(SQLTransientConnectionException.class, bulkhead::getConnection,
+                "Второе соединение сверх разрешений должно отклоняться.");
+        assertEquals(1, registry.get("filmorate.jdbc.bulkhead.rejections").functionCounter().count(),
+                "Отказ должен учитываться.");
+
+        first.close();
+        first.close();
+        verify(connection, times(2)).close();
+        assertEquals(1, registry.get("filmorate.jdbc.bulkhead.available").gauge().value(),
+                "Повторное закрытие не должно возвращать лишнее разрешение.");
+
+        bulkhead.getConnection().close();
+        assertEquals(3, registry.get("filmorate.jdbc.bulkhead.wait").timer().count(),
+                "Каждое ожидание разрешения должно замеряться.");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать разрешение, если пул не выдал соединение")
+    void should_release_permit_when_pool_fails() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLException("Пул недоступен.")).thenReturn(connection);
+
+        assertThrows(SQLException.class, bulkhead::getConnection);
+
+        bulkhead.getConnection();
+        assertEquals(0, registry.get("filmorate.jdbc.bulkhead.available").gauge().value(),
+                "Разрешение неудачного запроса должно вернуться.");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,353 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.Builder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генератор синтетического набора данных большого объема для тестов и бенчмарков.
+ * Популярность фильмов распределена по Ципфу (лайки пользователей выбирают фильм по рангу),
+ * количество друзей пользователя - по степенному закону, друзья выбираются по Ципфу среди пользователей,
+ * поэтому и у исходящих, и у входящих связей есть "хабы". Ранги перемешаны относительно id.
+ * Набор полностью определяется параметрами и seed: каждый этап генерации использует свой Random.
+ * <p>
+ * События выдаются в {@link Sink} с порядковыми номерами пользователей и фильмов (с 1),
+ * все пользователи и фильмы выдаются раньше лайков и дружбы.
+ * {@link #load(JdbcTemplate)} записывает набор в БД пакетными вставками.
+ *
+ * @author Николаев Д.В.
+ * @version 1.0
+ */
+@Builder
+public class DatasetGenerator {
+    /**
+     * Количество пользователей.
+     */
+    @Builder.Default
+    private final int users = 1000;
+
+    /**
+     * Количество фильмов.
+     */
+    @Builder.Default
+    private final int films = 1000;
+
+    /**
+     * Среднее количество лайков одного пользователя.
+     */
+    @Builder.Default
+    private final int likesPerUser = 20;
+
+    /**
+     * Показатель распределения Ципфа для популярности фильмов.
+     */
+    @Builder.Default
+    private final double likesSkew = 1.0;
+
+    /**
+     * Среднее количество друзей одного пользователя.
+     */
+    @Builder.Default
+    private final int friendsPerUser = 20;
+
+    /**
+     * Показатель степенного закона для количества друзей, больше 2.
+     */
+    @Builder.Default
+    private final double friendsExponent = 2.5;
+
+    /**
+     * Показатель распределения Ципфа для выбора друзей.
+     */
+    @Builder.Default
+    private final double friendsSkew = 0.8;
+
+    /**
+     * Начальное значение генераторов случайных чисел.
+     */
+    @Builder.Default
+    private final long seed = 42;
+
+    /**
+     * Префикс логинов, чтобы несколько наборов уживались в одной БД.
+     */
+    @Builder.Default
+    private final String loginPrefix = "gen";
+
+    /**
+     * Количество строк в одном пакете вставки.
+     */
+    @Builder.Default
+    private final int batchSize = 5000;
+
+    /**
+     * Метод генерации набора в получатель событий.
+     *
+     * @param sink получатель событий.
+     * @return Итоги генерации.
+     */
+    public Stats generate(Sink sink) {
+        Stats stats = new Stats();
+
+        Random userRandom = new Random(seed);
+        for (int user = 1; user <= users; user++) {
+            sink.user(user, LocalDate.of(1950, 1, 1).plusDays(userRandom.nextInt(365 * 55)));
+            stats.add(user);
+        }
+
+        Random filmRandom = new Random(seed + 1);
+        for (int film = 1; film <= films; film++) {
+            int ratingId = 1 + filmRandom.nextInt(5);
+            int genreId = 1 + filmRandom.nextInt(6);
+            sink.film(film, ratingId, genreId, LocalDate.of(1950, 1, 1).plusDays(filmRandom.nextInt(365 * 75)),
+                    60 + filmRandom.nextInt(121));
+            stats.add(film * 31L + ratingId * 7L + genreId);
+        }
+
+        Random likeRandom = new Random(seed + 2);
+        ZipfSampler filmSampler = new ZipfSampler(films, likesSkew, likeRandom);
+        for (int user = 1; user <= users; user++) {
+            int[] liked = filmSampler.sampleDistinct(likeRandom.nextInt(2 * likesPerUser + 1), 0);
+            for (int film : liked) {
+                sink.like(film, user);
+                stats.likes++;
+                stats.add((long) film * users + user);
+            }
+        }
+
+        Random friendRandom = new Random(seed + 3);
+        ZipfSampler userSampler = new ZipfSampler(users, friendsSkew, friendRandom);
+        double minDegree = friendsPerUser * (friendsExponent - 2) / (friendsExponent - 1);
+        for (int user = 1; user <= users; user++) {
+            double degree = minDegree * Math.pow(1 - friendRandom.nextDouble(), -1 / (friendsExponent - 1));
+            int count = (int) Math.min(users - 1, Math.round(degree));
+            for (int friend : userSampler.sampleDistinct(count, user)) {
+                sink.friend(user, friend);
+                stats.friendships++;
+                stats.add((long) user * users + friend);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Метод записи набора в БД пакетными вставками. Id новых записей берутся из БД после вставки
+     * пользователей и фильмов, поэтому набор можно добавлять к уже имеющимся данным.
+     * Во время загрузки в эти таблицы не должно быть других вставок.
+     *
+     * @param jdbc шаблон для пакетной вставки.
+     * @return Итоги генерации.
+     */
+    public Stats load(JdbcTemplate jdbc) {
+        JdbcSink sink = new JdbcSink(jdbc);
+        Stats stats = generate(sink);
+        sink.finish();
+        return stats;
+    }
+
+    /**
+     * Метод получения логина пользователя набора.
+     *
+     * @param user порядковый номер пользователя.
+     * @return Логин.
+     */
+    public String login(int user) {
+        return loginPrefix + "-user-" + user;
+    }
+
+    /**
+     * Получатель событий генерации. Номера пользователей и фильмов - порядковые, с 1.
+     */
+    public interface Sink {
+        void user(int user, LocalDate birthday);
+
+        void film(int film, int ratingId, int genreId, LocalDate releaseDate, int duration);
+
+        void like(int film, int user);
+
+        void friend(int user, int friend);
+    }
+
+    /**
+     * Итоги генерации: количества и контрольная сумма всех событий для проверки детерминированности.
+     */
+    public static final class Stats {
+        private long likes;
+        private long friendships;
+        private long checksum = 17;
+
+        public long likes() {
+            return likes;
+        }
+
+        public long friendships() {
+            return friendships;
+        }
+
+        public long checksum() {
+            return checksum;
+        }
+
+        private void add(long value) {
+            checksum = checksum * 31 + value;
+        }
+    }
+
+    /**
+     * Выбор элементов 1..n по распределению Ципфа: ранг k выбирается с вероятностью ~ 1 / k^s,
+     * ранги отображаются на элементы случайной перестановкой.
+     */
+    private static final class ZipfSampler {
+        private final double[] cumulative;
+        private final int[] itemByRank;
+        private final Random random;
+
+        private ZipfSampler(int n, double skew, Random random) {
+            this.random = random;
+            cumulative = new double[n];
+            double sum = 0;
+            for (int rank = 1; rank <= n; rank++) {
+                sum += 1 / Math.pow(rank, skew);
+                cumulative[rank - 1] = sum;
+            }
+            itemByRank = new int[n];
+            for (int i = 0; i < n; i++) {
+                itemByRank[i] = i + 1;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = itemByRank[i];
+                itemByRank[i] = itemByRank[j];
+                itemByRank[j] = swap;
+            }
+        }
+
+        private int sample() {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            return itemByRank[index < 0 ? -index - 1 : index];
+        }
+
+        /**
+         * Метод выбора до count разных элементов, кроме excluded. Повторы отбрасываются,
+         * поэтому при сильном перекосе элементов может оказаться меньше count.
+         */
+        private int[] sampleDistinct(int count, int excluded) {
+            int[] items = new int[count];
+            for (int i = 0; i < count; i++) {
+                items[i] = sample();
+            }
+            Arrays.sort(items);
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                if (items[i] != excluded && (size == 0 || items[size - 1] != items[i])) {
+                    items[size++] = items[i];
+                }
+            }
+            return Arrays.copyOf(items, size);
+        }
+    }
+
+    /**
+     * Запись событий в БД пакетами. Пользователи и фильмы записываются перед первым лайком или дружбой,
+     * после чего их id читаются из БД в порядке вставки.
+     */
+    private final class JdbcSink implements Sink {
+        private final JdbcTemplate jdbc;
+        private final long usersBefore;
+        private final long filmsBefore;
+        private final List<Object[]> rows = new ArrayList<>();
+        private final int[] genreByFilm = new int[films + 1];
+        private long[] userIds;
+        private long[] filmIds;
+        private String pendingSql;
+
+        private JdbcSink(JdbcTemplate jdbc) {
+            this.jdbc = jdbc;
+            usersBefore = jdbc.queryForObject("SELECT COALESCE(MAX(user_id), 0) FROM users", Long.class);
+            filmsBefore = jdbc.queryForObject("SELECT COALESCE(MAX(film_id), 0) FROM films", Long.class);
+        }
+
+        @Override
+        public void user(int user, LocalDate birthday) {
+            add("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                    new Object[]{login(user) + "@example.com", login(user), "Пользователь " + user,
+                            Date.valueOf(birthday)});
+        }
+
+        @Override
+        public void film(int film, int ratingId, int genreId, LocalDate releaseDate, int duration) {
+            genreByFilm[film] = genreId;
+            add("INSERT INTO films (name, description, release_date, duration, mpa) VALUES (?, ?, ?, ?, ?)",
+                    new Object[]{"Фильм " + film, "Описание фильма " + film, Date.valueOf(releaseDate), duration,
+                            ratingId});
+        }
+
+        @Override
+        public void like(int film, int user) {
+            resolveIds();
+            add("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)",
+                    new Object[]{filmIds[film], userIds[user]});
+        }
+
+        @Override
+        public void friend(int user, int friend) {
+            resolveIds();
+            add("INSERT INTO friends (user_id, friend_id) VALUES (?, ?)",
+                    new Object[]{userIds[user], userIds[friend]});
+        }
+
+        private void finish() {
+            resolveIds();
+            flush();
+            jdbc.update("UPDATE films f SET likes_count = (SELECT COUNT(*) FROM film_likes fl " +
+                    "WHERE fl.film_id = f.film_id) WHERE f.film_id > ?", filmsBefore);
+        }
+
+        private void resolveIds() {
+            if (userIds != null) {
+                return;
+            }
+            flush();
+            userIds = readIds("SELECT user_id FROM users WHERE user_id > ? ORDER BY user_id", usersBefore);
+            filmIds = readIds("SELECT film_id FROM films WHERE film_id > ? ORDER BY film_id", filmsBefore);
+            for (int film = 1; film <= films; film++) {
+                add("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)",
+                        new Object[]{filmIds[film], genreByFilm[film]});
+            }
+        }
+
+        private long[] readIds(String sql, long after) {
+            List<Long> ids = jdbc.queryForList(sql, Long.class, after);
+            long[] result = new long[ids.size() + 1];
+            for (int i = 0; i < ids.size(); i++) {
+                result[i + 1] = ids.get(i);
+            }
+            return result;
+        }
+
+        private void add(String sql, Object[] row) {
+            if (!sql.equals(pendingSql)) {
+                flush();
+                pendingSql = sql;
+            }
+            rows.add(row);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!rows.isEmpty()) {
+                jdbc.batchUpdate(pendingSql, rows);
+                rows.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmExtractor;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmGenresExtractor;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmLikesExtractor;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.storage.mappers.RatingRowMapper;
+import ru.yandex.practicum.filmorate.storage.mappers.UserFriendsExtractor;
+import ru.yandex.practicum.filmorate.storage.mappers.UserRowMapper;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@Import({FilmDbStorage.class, FilmRowMapper.class, FilmGenresExtractor.class, FilmLikesExtractor.class,
+        FilmExtractor.class, ReferenceDataCache.class, GenreDbStorage.class, GenreRowMapper.class,
+        RatingDbStorage.class, RatingRowMapper.class, UserDbStorage.class, UserRowMapper.class,
+        UserFriendsExtractor.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("DatasetGenerator")
+class DatasetGeneratorTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+
+    @Test
+    @DisplayName("Должен выдавать одинаковый набор при одинаковом seed")
+    void should_generate_same_dataset_from_same_seed() {
+        DatasetGenerator.Sink ignored = new DatasetGenerator.Sink() {
+            @Override
+            public void user(int user, LocalDate birthday) {
+            }
+
+            @Override
+            public void film(int film, int ratingId, int genreId, LocalDate releaseDate, int duration) {
+            }
+
+            @Override
+            public void like(int film, int user) {
+            }
+
+            @Override
+            public void friend(int user, int friend) {
+            }
+        };
+
+        long first = DatasetGenerator.builder().seed(7).build().generate(ignored).checksum();
+        long second = DatasetGenerator.builder().seed(7).build().generate(ignored).checksum();
+        long other = DatasetGenerator.builder().seed(8).build().generate(ignored).checksum();
+
+        assertEquals(first, second, "Набор должен определяться seed.");
+        assertNotEquals(first, other, "Другой seed должен давать другой набор.");
+    }
+
+    @Test
+    @DisplayName("Должен загрузить в БД набор с перекосом лайков и друзей")
+    void should_load_skewed_dataset() {
+        long usersBefore = count("SELECT COUNT(*) FROM users");
+        DatasetGenerator generator = DatasetGenerator.builder()
+                .users(2000)
+                .films(500)
+                .build();
+        DatasetGenerator.Stats stats = generator.load(jdbcTemplate);
+
+        assertEquals(usersBefore + 2000, count("SELECT COUNT(*) FROM users"), "Загружены не все пользователи.");
+        assertEquals(stats.likes(), count("SELECT COUNT(*) FROM film_likes fl JOIN users u ON fl.user_id = u.user_id " +
+                "WHERE u.login LIKE 'gen-%'"), "Загружены не все лайки.");
+        assertEquals(stats.friendships(), count("SELECT COUNT(*) FROM friends f JOIN users u ON f.user_id = u.user_id " +
+                "WHERE u.login LIKE 'gen-%'"), "Загружена не вся дружба.");
+
+        long maxLikes = count("SELECT MAX(likes_count) FROM films");
+        long medianLikes = count("SELECT likes_count FROM films ORDER BY likes_count LIMIT 1 OFFSET " +
+                (count("SELECT COUNT(*) FROM films") / 2));
+        assertTrue(maxLikes > 20 * Math.max(1, medianLikes), "Лайки должны быть распределены с перекосом.");
+        long maxFriends = count("SELECT MAX(c) FROM (SELECT COUNT(*) c FROM friends GROUP BY user_id)");
+        assertTrue(maxFriends > 5 * 20, "Количество друзей должно иметь тяжелый хвост.");
+
+        List<Long> expected = jdbcTemplate.queryForList("SELECT film_id FROM film_likes GROUP BY film_id " +
+                "ORDER BY COUNT(*) DESC, film_id LIMIT 10", Long.class);
+        assertEquals(expected, filmDbStorage.getPopularFilms(10).stream().map(Film::getId).toList(),
+                "Неверные популярные фильмы.");
+        Optional<Long> userId = userDbStorage.findIdByLogin(generator.login(1500));
+        assertTrue(userId.isPresent(), "Пользователь набора не найден по логину.");
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
\ No newline at end of file
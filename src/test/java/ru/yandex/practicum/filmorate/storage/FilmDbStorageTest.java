@@ -6,13 +6,17 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.storage.mappers.FilmExtractor;
 import ru.yandex.practicum.filmorate.storage.mappers.FilmGenresExtractor;
 import ru.yandex.practicum.filmorate.storage.mappers.FilmLikesExtractor;
-import ru.yandex.practicum.filmorate.storage.mappers.FilmMpaExtractor;
 import ru.yandex.practicum.filmorate.storage.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.storage.mappers.RatingRowMapper;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -23,17 +27,22 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @JdbcTest
-@Import({FilmDbStorage.class, FilmRowMapper.class, FilmGenresExtractor.class, FilmMpaExtractor.class,
-        FilmLikesExtractor.class, FilmExtractor.class})
+@Import({FilmDbStorage.class, FilmRowMapper.class, FilmGenresExtractor.class, FilmLikesExtractor.class,
+        FilmExtractor.class, ReferenceDataCache.class, GenreDbStorage.class, GenreRowMapper.class,
+        RatingDbStorage.class, RatingRowMapper.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @DisplayName("FilmDbStorage")
 class FilmDbStorageTest {
     private static final long TEST_FILM_ID = 1L;
     private static final long TEST_NEWFILM_ID = 4L;
     private final FilmDbStorage filmDbStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataCache referenceDataCache;
 
     static Film getTestFilm() {
         Rating rating = new Rating();
@@ -93,6 +102,23 @@ class FilmDbStorageTest {
         }
     }
 
+    @Test
+    @DisplayName("Должен выдать все фильмы с количеством лайков без id проголосовавших")
+    void should_return_all_films_with_likes_count_only() {
+        List<Film> films = filmDbStorage.findAll(false).stream().toList();
+
+        assertEquals(List.of(2, 3, 1), films.stream().map(Film::getLikesCount).toList(), "Неверное количество лайков.");
+        films.forEach(film -> assertNull(film.getLikesUserId(), "Id проголосовавших не должны загружаться."));
+    }
+
+    @Test
+    @DisplayName("Должен выдать все фильмы с id проголосовавших по запросу")
+    void should_return_all_films_with_likes() {
+        List<Film> films = filmDbStorage.findAll(true).stream().toList();
+
+        assertEquals(new HashSet<>(List.of(1L, 2L, 3L)), films.get(1).getLikesUserId(), "Неверные лайки фильма 2.");
+        assertEquals(3, films.get(1).getLikesCount(), "Неверное количество лайков фильма 2.");
+    }
 
     @Test
     @DisplayName("Должен найти фильм по id = 1")
@@ -176,4 +202,153 @@ class FilmDbStorageTest {
         assertEquals(1, films.get(1).getId(), "Средний по популярности фильм 1");
         assertEquals(3, films.get(2).getId(), "Самый непопулярный фильм 3");
     }
+
+    @Test
+    @DisplayName("Должен ограничить выборку популярных и упорядочить фильмы с равными лайками по id")
+    void should_limit_popular_films_and_break_ties_by_id() {
+        filmDbStorage.deleteLike(3, 1);
+        Film newFilm = filmDbStorage.create(getTestFilm());
+
+        List<Film> films = filmDbStorage.getPopularFilms(4);
+        assertEquals(List.of(2L, 1L, 3L, newFilm.getId()), films.stream().map(Film::getId).toList(),
+                "Неверный порядок популярных фильмов.");
+        assertEquals(3, films.get(0).getLikesUserId().size(), "Лайки самого популярного фильма не загружены.");
+        assertEquals(2, films.get(0).getGenres().size(), "Жанры самого популярного фильма не загружены.");
+
+        assertEquals(2, filmDbStorage.getPopularFilms(2).size(), "Неверный объем выборки.");
+    }
+
+    @Test
+    @DisplayName("Должен выдать фильмы постранично после указанного id")
+    void should_return_films_page_after_id() {
+        List<Film> firstPage = filmDbStorage.findPage(0, 2, false);
+        assertEquals(List.of(1L, 2L), firstPage.stream().map(Film::getId).toList(), "Неверная первая страница.");
+        assertEquals(2, firstPage.get(0).getGenres().size(), "Жанры фильма 1 не загружены.");
+        assertEquals(2, firstPage.get(0).getLikesCount(), "Неверное количество лайков фильма 1.");
+
+        List<Film> nextPage = filmDbStorage.findPage(firstPage.getLast().getId(), 2, true);
+        assertEquals(List.of(3L), nextPage.stream().map(Film::getId).toList(), "Неверная следующая страница.");
+        assertEquals(new HashSet<>(List.of(1L)), nextPage.get(0).getLikesUserId(), "Неверные лайки фильма 3.");
+    }
+
+    @Test
+    @DisplayName("Должен выгрузить все фильмы потоком по возрастанию id")
+    void should_stream_all_films() {
+        List<Film> films = new ArrayList<>();
+        filmDbStorage.streamAll(films::add);
+
+        assertEquals(List.of(1L, 2L, 3L), films.stream().map(Film::getId).toList(), "Неверный порядок фильмов.");
+        assertEquals(List.of(2, 3, 1), films.stream().map(Film::getLikesCount).toList(), "Неверное количество лайков.");
+        assertEquals(2, films.get(1).getGenres().size(), "Жанры фильма 2 не загружены.");
+        assertThat(films.get(0))
+                .usingRecursiveComparison()
+                .ignoringExpectedNullFields()
+                .isEqualTo(getTestFilm());
+    }
+
+    @Test
+    @DisplayName("Должен учесть повторный лайк пользователя 1 фильму 1 только один раз")
+    void should_ignore_repeated_like() {
+        List<Long> likes = filmDbStorage.addLike(1, 1);
+
+        assertEquals(2, likes.size(), "Повторный лайк не должен добавляться.");
+        assertEquals(2, filmDbStorage.findById(1).getLikesCount(), "Неверный счетчик лайков.");
+    }
+
+    @Test
+    @DisplayName("Должен поддерживать счетчик лайков при добавлении и удалении")
+    void should_maintain_likes_count() {
+        filmDbStorage.addLike(3, 2);
+        filmDbStorage.addLike(3, 3);
+        filmDbStorage.deleteLike(3, 1);
+
+        assertEquals(2, filmDbStorage.findAll(false).stream().toList().get(2).getLikesCount(),
+                "Неверный счетчик лайков фильма 3.");
+        assertEquals(0, filmDbStorage.reconcileLikesCount(), "Расхождений быть не должно.");
+    }
+
+    @Test
+    @DisplayName("Должен найти и пересчитать расхождение счетчика лайков фильма 1")
+    void should_reconcile_likes_count_drift() {
+        jdbcTemplate.update("UPDATE films SET likes_count = 10 WHERE film_id = 1");
+        assertEquals(1, filmDbStorage.getPopularFilms(1).getFirst().getId(), "Счетчик не изменен.");
+
+        assertEquals(1, filmDbStorage.reconcileLikesCount(), "Неверное количество фильмов с расхождением.");
+        assertEquals(2, filmDbStorage.getPopularFilms(1).getFirst().getId(), "Самый популярный фильм 2.");
+        assertEquals(0, filmDbStorage.reconcileLikesCount(), "Расхождений быть не должно.");
+    }
+
+    @Test
+    @DisplayName("Должен заполнить рейтинг и жанры фильма 1 из кэша справочников")
+    void should_fill_rating_and_genres_from_cache() {
+        Film film = filmDbStorage.findById(TEST_FILM_ID);
+
+        assertEquals("G", film.getMpa().getName(), "Неверный рейтинг фильма 1.");
+        assertEquals(List.of("Комедия", "Мультфильм"), film.getGenres().stream().map(Genre::getName).toList(),
+                "Неверные жанры фильма 1.");
+    }
+
+    @Test
+    @DisplayName("Должен вернуть новое название жанра после обновления кэша справочников")
+    void should_use_new_genre_name_after_cache_refresh() {
+        referenceDataCache.getGenre(1);
+        jdbcTemplate.update("UPDATE genres SET name = 'Комедия положений' WHERE genre_id = 1");
+        assertEquals("Комедия", filmDbStorage.findById(TEST_FILM_ID).getGenres().getFirst().getName(),
+                "Снимок не должен меняться до обновления.");
+
+        try {
+            referenceDataCache.refresh();
+
+            assertEquals("Комедия положений", filmDbStorage.findById(TEST_FILM_ID).getGenres().getFirst().getName(),
+                    "Снимок не обновлен.");
+            assertNull(referenceDataCache.getGenre(100), "Несуществующий жанр не должен находиться.");
+        } finally {
+            jdbcTemplate.update("UPDATE genres SET name = 'Комедия' WHERE genre_id = 1");
+            referenceDataCache.refresh();
+        }
+    }
+
+    @Test
+    @DisplayName("Должен проверить существование фильмов по id")
+    void should_check_films_exist() {
+        assertTrue(filmDbStorage.exists(TEST_FILM_ID), "Фильм 1 должен существовать.");
+        assertTrue(filmDbStorage.exists(TEST_FILM_ID), "Повторная проверка фильма 1.");
+        assertFalse(filmDbStorage.exists(99), "Фильма 99 нет.");
+        assertTrue(filmDbStorage.existsAll(List.of(1L, 2L, 3L)), "Фильмы 1-3 должны существовать.");
+        assertFalse(filmDbStorage.existsAll(List.of(2L, 99L)), "Фильма 99 нет.");
+    }
+
+    @Test
+    @DisplayName("Должен сохранить пачку изменений лайков с последним изменением по каждой паре")
+    void should_apply_like_batch() {
+        filmDbStorage.applyLikes(List.of(
+                new LikeChange(3, 2, true),
+                new LikeChange(3, 3, true),
+                new LikeChange(3, 1, false),
+                new LikeChange(3, 3, false),
+                new LikeChange(3, 3, true),
+                new LikeChange(1, 1, true),
+                new LikeChange(2, 3, false)));
+
+        assertEquals(List.of(2L, 3L), filmDbStorage.findLikes(3).stream().sorted().toList(),
+                "Неверные лайки фильма 3.");
+        assertEquals(List.of(2, 2, 2), filmDbStorage.findAll(false).stream().map(Film::getLikesCount).toList(),
+                "Неверные счетчики лайков.");
+        assertEquals(0, filmDbStorage.reconcileLikesCount(), "Расхождений быть не должно.");
+    }
+
+    @Test
+    @DisplayName("Должен выдавать похожие фильмы и рекомендации по совместным лайкам из FILM_LIKES")
+    void should_find_similar_films_and_recommendations() {
+        filmDbStorage.rebuildCoLikes();
+
+        assertEquals(List.of(2L, 3L), filmDbStorage.getSimilarFilms(1, 10).stream().map(Film::getId).toList(),
+                "Неверные похожие фильмы для фильма 1.");
+        assertEquals(List.of(1L, 2L), filmDbStorage.getSimilarFilms(3, 10).stream().map(Film::getId).toList(),
+                "При равенстве фильмы идут по возрастанию id.");
+        List<Film> recommendations = filmDbStorage.getRecommendations(3, 10);
+        assertEquals(List.of(1L, 3L), recommendations.stream().map(Film::getId).toList(),
+                "Неверные рекомендации пользователю 3.");
+        assertEquals(2, recommendations.getFirst().getLikesCount(), "Лайки рекомендованного фильма не заполнены.");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("FriendGraph")
+class FriendGraphTest {
+    @Test
+    @DisplayName("Должен выдавать одинаковые предложения при последовательном и параллельном подсчете")
+    void should_suggest_same_in_parallel() {
+        FriendGraph sequential = new FriendGraph(FriendGraph.DEFAULT_COMPACT_THRESHOLD, Integer.MAX_VALUE);
+        FriendGraph parallel = new FriendGraph(FriendGraph.DEFAULT_COMPACT_THRESHOLD, 0);
+        FriendGraph.Builder sequentialBuilder = sequential.startLoad(500);
+        FriendGraph.Builder parallelBuilder = parallel.startLoad(500);
+        Random random = new Random(15);
+        for (long userId = 1; userId <= 500; userId++) {
+            for (int i = 0; i < 20; i++) {
+                long friendId = 1 + random.nextInt(500);
+                sequentialBuilder.add(userId, friendId);
+                parallelBuilder.add(userId, friendId);
+            }
+        }
+        sequential.finishLoad(sequentialBuilder);
+        parallel.finishLoad(parallelBuilder);
+
+        for (long userId = 1; userId <= 500; userId += 7) {
+            assertEquals(sequential.suggest(userId, 10), parallel.suggest(userId, 10),
+                    "Разные предложения для пользователя " + userId + ".");
+        }
+    }
+
+    @Test
+    @DisplayName("Должен выдавать одинаковые предложения из пула буферов на виртуальных потоках")
+    void should_suggest_same_on_virtual_threads() throws Exception {
+        FriendGraph graph = new FriendGraph(FriendGraph.DEFAULT_COMPACT_THRESHOLD, Integer.MAX_VALUE);
+        FriendGraph.Builder builder = graph.startLoad(300);
+        Random random = new Random(25);
+        for (long userId = 1; userId <= 300; userId++) {
+            for (int i = 0; i < 15; i++) {
+                builder.add(userId, 1 + random.nextInt(300));
+            }
+        }
+        graph.finishLoad(builder);
+        Map<Long, List<Long>> expected = new HashMap<>();
+        for (long userId = 1; userId <= 300; userId++) {
+            expected.put(userId, graph.suggest(userId, 10));
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (long userId = 1; userId <= 300; userId++) {
+                long user = userId;
+                results.add(executor.submit(() -> expected.get(user).equals(graph.suggest(user, 10))));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(), "Предложения из общего буфера отличаются от последовательных.");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Должен сохранять изменения при перестроении снимка и при полной загрузке")
+    void should_keep_changes_on_compact_and_load() {
+        FriendGraph graph = new FriendGraph(2, FriendGraph.DEFAULT_PARALLEL_THRESHOLD);
+        graph.replace(1, List.of(2L, 3L));
+        graph.replace(2, List.of(4L));
+        graph.replace(3, List.of(4L, 5L));
+
+        assertEquals(List.of(2L, 3L), graph.getFriends(1), "Неверные друзья после перестроения.");
+        assertEquals(List.of(4L, 5L), graph.suggest(1, 10), "Неверные предложения после перестроения.");
+
+        FriendGraph.Builder builder = graph.startLoad(3);
+        builder.add(1, 2);
+        builder.add(2, 4);
+        graph.replace(1, new ArrayList<>(List.of(5L, 2L)));
+        graph.finishLoad(builder);
+
+        assertEquals(List.of(2L, 5L), graph.getFriends(1), "Изменение во время загрузки потеряно.");
+        assertEquals(List.of(4L), graph.suggest(1, 10), "Неверные предложения после загрузки.");
+        assertEquals(List.of(), graph.suggest(4, 10), "У пользователя 4 нет друзей.");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("InMemoryFilmStorage")
+class InMemoryFilmStorageTest {
+    private InMemoryFilmStorage filmStorage;
+
+    static Film getTestFilm(int i) {
+        return Film.builder()
+                .name("Фильм " + i)
+                .description("Описание " + i)
+                .releaseDate(LocalDate.of(1999, 1, 1).plusDays(i))
+                .duration(100 + i)
+                .mpa(new Rating(1L, null))
+                .genres(new LinkedHashSet<>(List.of(new Genre(2L, null), new Genre(1L, null))))
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        GenreStorage genreStorage = mock(GenreStorage.class);
+        when(genreStorage.findAll()).thenReturn(List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма")));
+        RatingStorage ratingStorage = mock(RatingStorage.class);
+        when(ratingStorage.findAll()).thenReturn(List.of(new Rating(1L, "G"), new Rating(2L, "PG")));
+        filmStorage = new InMemoryFilmStorage(new ReferenceDataCache(genreStorage, ratingStorage));
+    }
+
+    @Test
+    @DisplayName("Должен создать, найти и изменить фильм с рейтингом и жанрами")
+    void should_create_find_and_update_film() {
+        Film film = filmStorage.create(getTestFilm(1));
+        assertEquals(1L, film.getId(), "Неверный id нового фильма.");
+
+        Film found = filmStorage.findById(1);
+        assertEquals("G", found.getMpa().getName(), "Рейтинг не заполнен.");
+        assertEquals(List.of("Драма", "Комедия"), found.getGenres().stream().map(Genre::getName).toList(),
+                "Жанры не заполнены.");
+
+        Film changed = getTestFilm(1);
+        changed.setId(1L);
+        changed.setName("Фильм 1 новый");
+        changed.setMpa(new Rating(2L, null));
+        changed.setGenres(new LinkedHashSet<>(List.of(new Genre(1L, null))));
+        filmStorage.update(changed);
+
+        found = filmStorage.findById(1);
+        assertEquals("Фильм 1 новый", found.getName(), "Название не изменено.");
+        assertEquals("PG", found.getMpa().getName(), "Рейтинг не изменен.");
+        assertEquals(List.of("Комедия"), found.getGenres().stream().map(Genre::getName).toList(),
+                "Жанры не изменены.");
+
+        changed.setId(99L);
+        assertThrows(NotFoundException.class, () -> filmStorage.update(changed), "Фильма 99 нет.");
+        assertThrows(NotFoundException.class, () -> filmStorage.findById(99), "Фильма 99 нет.");
+    }
+
+    @Test
+    @DisplayName("Должен отдавать страницы и популярные фильмы по порядку")
+    void should_return_pages_and_popular_films_in_order() {
+        for (int i = 1; i <= 5; i++) {
+            filmStorage.create(getTestFilm(i));
+        }
+        filmStorage.addLike(3, 1);
+        filmStorage.addLike(3, 2);
+        filmStorage.addLike(5, 1);
+
+        assertEquals(List.of(3L, 4L), filmStorage.findPage(2, 2, false).stream().map(Film::getId).toList(),
+                "Неверная страница.");
+        assertNull(filmStorage.findPage(0, 1, false).getFirst().getLikesUserId(), "Лайки не запрашивались.");
+        assertEquals(List.of(3L, 5L, 1L), filmStorage.getPopularFilms(3).stream().map(Film::getId).toList(),
+                "Неверный порядок популярных фильмов.");
+        assertTrue(filmStorage.existsAll(List.of(1L, 5L)), "Фильмы 1 и 5 должны существовать.");
+        assertFalse(filmStorage.exists(6), "Фильма 6 нет.");
+    }
+
+    @Test
+    @DisplayName("Должен корректно учитывать лайки, выставляемые параллельно")
+    void should_count_concurrent_likes() throws InterruptedException {
+        filmStorage.create(getTestFilm(1));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (long userId = 1; userId <= 1000; userId++) {
+            long id = userId;
+            executor.submit(() -> filmStorage.addLike(1, id));
+            executor.submit(() -> filmStorage.addLike(1, id));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS), "Лайки не выставлены.");
+
+        assertEquals(1000, filmStorage.findById(1).getLikesCount(), "Неверное количество лайков.");
+        assertEquals(999, filmStorage.deleteLike(1, 1).size(), "Лайк не удален.");
+    }
+
+    @Test
+    @DisplayName("Должен перестраивать порядок популярных фильмов при изменении лайков")
+    void should_reorder_popular_films_on_like_changes() {
+        for (int i = 1; i <= 3; i++) {
+            filmStorage.create(getTestFilm(i));
+        }
+        filmStorage.addLike(2, 1);
+        filmStorage.addLike(2, 1);
+        filmStorage.addLike(3, 1);
+        filmStorage.addLike(3, 2);
+        assertEquals(List.of(3L, 2L, 1L), filmStorage.getPopularFilms(10).stream().map(Film::getId).toList(),
+                "Неверный порядок после лайков.");
+
+        filmStorage.deleteLike(3, 1);
+        filmStorage.deleteLike(3, 2);
+        filmStorage.deleteLike(3, 3);
+        assertEquals(List.of(2L, 1L), filmStorage.getPopularFilms(2).stream().map(Film::getId).toList(),
+                "Неверный порядок после удаления лайков.");
+    }
+
+    @Test
+    @DisplayName("Должен выдавать похожие фильмы и рекомендации по совместным лайкам")
+    void should_find_similar_films_and_recommendations() {
+        for (int i = 1; i <= 3; i++) {
+            filmStorage.create(getTestFilm(i));
+        }
+        filmStorage.addLike(1, 1);
+        filmStorage.addLike(1, 2);
+        filmStorage.addLike(2, 1);
+        filmStorage.addLike(2, 2);
+        filmStorage.addLike(2, 3);
+        filmStorage.addLike(3, 1);
+
+        assertEquals(List.of(2L, 3L), filmStorage.getSimilarFilms(1, 10).stream().map(Film::getId).toList(),
+                "Неверные похожие фильмы для фильма 1.");
+        assertEquals(List.of(1L, 2L), filmStorage.getSimilarFilms(3, 10).stream().map(Film::getId).toList(),
+                "При равенстве фильмы идут по возрастанию id.");
+        assertEquals(List.of(1L, 3L), filmStorage.getRecommendations(3, 10).stream().map(Film::getId).toList(),
+                "Неверные рекомендации пользователю 3.");
+
+        assertEquals(List.of(2L), filmStorage.getSimilarFilms(1, 1).stream().map(Film::getId).toList(),
+                "Не учтен объем выборки.");
+
+        filmStorage.deleteLike(2, 1);
+        assertEquals(List.of(1L), filmStorage.getSimilarFilms(3, 10).stream().map(Film::getId).toList(),
+                "Совместный лайк фильмов 2 и 3 не убран.");
+        assertEquals(List.of(), filmStorage.getRecommendations(99, 10), "У пользователя 99 нет лайков.");
+        assertThrows(NotFoundException.class, () -> filmStorage.getSimilarFilms(99, 10), "Фильма 99 нет.");
+    }
+}
\ No newline at end of file
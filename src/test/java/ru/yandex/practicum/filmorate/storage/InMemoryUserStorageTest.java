@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("InMemoryUserStorage")
+class InMemoryUserStorageTest {
+    private InMemoryUserStorage userStorage;
+
+    static User getTestUser(int i) {
+        return User.builder()
+                .email("email" + i + "@email.com")
+                .login("userlogin" + i)
+                .birthday(LocalDate.of(2001, 1, 10).plusDays(i))
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        userStorage = new InMemoryUserStorage();
+        for (int i = 1; i <= 3; i++) {
+            userStorage.create(getTestUser(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Должен вести одностороннюю дружбу и находить общих друзей")
+    void should_keep_one_way_friendship() {
+        userStorage.addFriend(1, 3, false);
+        userStorage.addFriend(2, 3, false);
+
+        assertEquals(Set.of(3L), userStorage.findById(1).getFriendsUserId(), "Неверные друзья пользователя 1.");
+        assertEquals(Set.of(), userStorage.findById(3).getFriendsUserId(), "Дружба должна быть односторонней.");
+        assertEquals(List.of(3L), userStorage.getCommonFriends(1, 2).stream().map(User::getId).toList(),
+                "Неверные общие друзья.");
+        assertEquals(List.of(), userStorage.deleteFriend(1, 3, false), "Друг не удален.");
+    }
+
+    @Test
+    @DisplayName("Должен занимать логин атомарно и освобождать его при смене")
+    void should_keep_login_index() {
+        assertEquals(Optional.of(2L), userStorage.findIdByLogin("userlogin2"), "Неверный id по логину.");
+        assertThrows(ValidationException.class, () -> userStorage.create(getTestUser(2)), "Логин занят.");
+
+        User user = getTestUser(2);
+        user.setId(2L);
+        user.setLogin("newlogin");
+        userStorage.update(user);
+
+        assertEquals(Optional.empty(), userStorage.findIdByLogin("userlogin2"), "Старый логин не освобожден.");
+        assertEquals(Optional.of(2L), userStorage.findIdByLogin("newlogin"), "Новый логин не занят.");
+        assertEquals("newlogin", userStorage.findById(2).getName(), "Пустое имя заполняется логином.");
+        assertEquals(List.of(3L), userStorage.findPage(2, 10).stream().map(User::getId).toList(),
+                "Неверная страница.");
+    }
+
+    @Test
+    @DisplayName("Должен считать общих друзей по битовым картам")
+    void should_count_common_friends() {
+        for (int i = 4; i <= 10; i++) {
+            userStorage.create(getTestUser(i));
+            userStorage.addFriend(1, i, false);
+            if (i % 2 == 0) {
+                userStorage.addFriend(2, i, false);
+            }
+        }
+
+        assertEquals(4, userStorage.countCommonFriends(1, 2), "Неверное количество общих друзей.");
+        assertEquals(List.of(4L, 6L, 8L, 10L), userStorage.getCommonFriends(2, 1).stream().map(User::getId).toList(),
+                "Неверные общие друзья.");
+        assertEquals(0, userStorage.countCommonFriends(1, 3), "У пользователя 3 нет друзей.");
+        assertThrows(NotFoundException.class, () -> userStorage.countCommonFriends(1, 99), "Пользователя 99 нет.");
+    }
+
+    @Test
+    @DisplayName("Должен предлагать друзей друзей по количеству общих друзей")
+    void should_suggest_friends_of_friends() {
+        userStorage.create(getTestUser(4));
+        userStorage.create(getTestUser(5));
+        userStorage.addFriend(1, 2, false);
+        userStorage.addFriend(1, 3, false);
+        userStorage.addFriend(2, 1, false);
+        userStorage.addFriend(2, 4, false);
+        userStorage.addFriend(3, 4, false);
+        userStorage.addFriend(3, 5, false);
+
+        assertEquals(List.of(4L, 5L), userStorage.getSuggestions(1, 10).stream().map(User::getId).toList(),
+                "Неверный порядок предложений.");
+        assertEquals(List.of(4L), userStorage.getSuggestions(1, 1).stream().map(User::getId).toList(),
+                "Не учтено ограничение количества.");
+
+        userStorage.addFriend(1, 4, false);
+        assertEquals(List.of(5L), userStorage.getSuggestions(1, 10).stream().map(User::getId).toList(),
+                "Друг не должен предлагаться.");
+        assertThrows(NotFoundException.class, () -> userStorage.getSuggestions(99, 10), "Пользователя 99 нет.");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("LikeWriteBuffer")
+class LikeWriteBufferTest {
+    private InMemoryFilmStorage filmStorage;
+    private LikeWriteBuffer buffer;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        GenreStorage genreStorage = mock(GenreStorage.class);
+        when(genreStorage.findAll()).thenReturn(List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма")));
+        RatingStorage ratingStorage = mock(RatingStorage.class);
+        when(ratingStorage.findAll()).thenReturn(List.of(new Rating(1L, "G")));
+        filmStorage = new InMemoryFilmStorage(new ReferenceDataCache(genreStorage, ratingStorage));
+        for (int i = 1; i <= 3; i++) {
+            filmStorage.create(InMemoryFilmStorageTest.getTestFilm(i));
+        }
+
+        buffer = new LikeWriteBuffer(filmStorage, true, 100, 50, Duration.ofMillis(50), Duration.ofSeconds(5));
+        registry = new SimpleMeterRegistry();
+        buffer.bindTo(registry);
+        buffer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        buffer.stop();
+    }
+
+    @Test
+    @DisplayName("Должен сохранить лайк до подтверждения")
+    void should_apply_like_before_ack() {
+        buffer.submitAndWait(new LikeChange(1, 1, true));
+
+        assertEquals(List.of(1L), filmStorage.findLikes(1), "Лайк не сохранен до подтверждения.");
+        assertEquals(1, registry.get("filmorate.likes.buffer.flush.size").summary().count(),
+                "Пачка не учтена в метриках.");
+    }
+
+    @Test
+    @DisplayName("Должен сохранить все лайки из буфера при остановке")
+    void should_flush_buffered_likes_on_stop() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (long userId = 1; userId <= 1000; userId++) {
+            long id = userId;
+            executor.submit(() -> buffer.submit(new LikeChange(2, id, true)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS), "Лайки не переданы в буфер.");
+        buffer.stop();
+
+        assertEquals(1000, filmStorage.findById(2).getLikesCount(), "Не все лайки сохранены.");
+        assertEquals(1000, registry.get("filmorate.likes.buffer.changes").tag("result", "flushed")
+                .functionCounter().count(), "Неверное количество сохраненных изменений.");
+        assertTrue(registry.get("filmorate.likes.buffer.flush.size").summary().max() > 1,
+                "Лайки должны сохраняться пачками.");
+        assertEquals(0, registry.get("filmorate.likes.buffer.depth").gauge().value(), "Очередь не пуста.");
+    }
+
+    @Test
+    @DisplayName("Должен вернуть ошибку ожидающему, если изменение не сохранилось")
+    void should_fail_ack_of_rejected_change() {
+        buffer.submit(new LikeChange(3, 1, true));
+
+        assertThrows(InternalServerException.class, () -> buffer.submitAndWait(new LikeChange(99, 1, true)),
+                "Фильма 99 нет.");
+        assertEquals(List.of(1L), filmStorage.findLikes(3), "Соседнее изменение должно сохраниться.");
+        assertEquals(1, registry.get("filmorate.likes.buffer.changes").tag("result", "failed")
+                .functionCounter().count(), "Ошибка не учтена в метриках.");
+    }
+}
\ No newline at end of file
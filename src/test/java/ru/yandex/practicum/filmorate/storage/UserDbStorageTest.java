@@ -1,23 +1,30 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.mappers.UserFriendsExtractor;
 import ru.yandex.practicum.filmorate.storage.mappers.UserRowMapper;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @JdbcTest
@@ -28,6 +35,8 @@ class UserDbStorageTest {
     private static final long TEST_USER_ID = 1L;
     private static final long TEST_NEWUSER_ID = 4L;
     private final UserDbStorage userDbStorage;
+    private final NamedParameterJdbcOperations jdbc;
+    private final UserRowMapper mapper;
 
     static User getTestUser() {
         User user = User.builder()
@@ -171,4 +180,97 @@ class UserDbStorageTest {
                 .ignoringActualNullFields()
                 .isEqualTo(friend);
     }
+
+    @Test
+    @DisplayName("Должен выдать пользователей постранично после указанного id")
+    void should_return_users_page_after_id() {
+        List<User> firstPage = userDbStorage.findPage(0, 2);
+        assertEquals(List.of(1L, 2L), firstPage.stream().map(User::getId).toList(), "Неверная первая страница.");
+
+        List<User> nextPage = userDbStorage.findPage(firstPage.getLast().getId(), 2);
+        assertEquals(List.of(3L), nextPage.stream().map(User::getId).toList(), "Неверная следующая страница.");
+        assertEquals(Set.of(2L), nextPage.get(0).getFriendsUserId(), "Друзья пользователя 3 не загружены.");
+    }
+
+    @Test
+    @DisplayName("Должен проверить существование пользователей по id")
+    void should_check_users_exist() {
+        assertTrue(userDbStorage.exists(TEST_USER_ID), "Пользователь 1 должен существовать.");
+        assertTrue(userDbStorage.exists(TEST_USER_ID), "Повторная проверка пользователя 1.");
+        assertFalse(userDbStorage.exists(99), "Пользователя 99 нет.");
+        assertTrue(userDbStorage.existsAll(List.of(1L, 2L, 3L)), "Пользователи 1-3 должны существовать.");
+        assertFalse(userDbStorage.existsAll(List.of(1L, 99L)), "Пользователя 99 нет.");
+
+        User newUser = getTestUser();
+        newUser.setId(null);
+        newUser.setLogin("existslogin");
+        newUser = userDbStorage.create(newUser);
+        assertTrue(userDbStorage.exists(newUser.getId()), "Новый пользователь должен существовать.");
+    }
+
+    @Test
+    @DisplayName("Должен найти id пользователя по логину")
+    void should_find_user_id_by_login() {
+        assertEquals(Optional.of(2L), userDbStorage.findIdByLogin("userlogin2"), "Неверный id пользователя.");
+        assertEquals(Optional.empty(), userDbStorage.findIdByLogin("UserLogin2"), "Логин учитывает регистр.");
+        assertEquals(Optional.empty(), userDbStorage.findIdByLogin("nobody"), "Пользователя с логином нет.");
+    }
+
+    @Test
+    @DisplayName("Должен отклонить создание и изменение пользователя с занятым логином")
+    void should_reject_used_login() {
+        User newUser = getTestUser();
+        newUser.setId(null);
+
+        ValidationException e = assertThrows(ValidationException.class, () -> userDbStorage.create(newUser));
+        assertEquals(UserStorage.LOGIN_USED_MESSAGE, e.getMessage(), "Неверное сообщение.");
+
+        User user = userDbStorage.findById(2);
+        user.setLogin("userlogin3");
+        assertThrows(ValidationException.class, () -> userDbStorage.update(user), "Логин занят пользователем 3.");
+    }
+
+    @Test
+    @DisplayName("Должен пересчитать общих друзей после изменения друзей пользователя 1")
+    void should_refresh_common_friends_after_friends_change() {
+        assertEquals(List.of(), userDbStorage.getCommonFriends(1, 3), "Общих друзей пока нет.");
+        assertEquals(0, userDbStorage.countCommonFriends(1, 3), "Общих друзей пока нет.");
+
+        userDbStorage.addFriend(1, 2, false);
+        assertEquals(List.of(2L), userDbStorage.getCommonFriends(1, 3).stream().map(User::getId).toList(),
+                "Неверные общие друзья после добавления.");
+        assertEquals(1, userDbStorage.countCommonFriends(1, 3), "Неверное количество общих друзей.");
+
+        userDbStorage.deleteFriend(1, 2, false);
+        assertEquals(0, userDbStorage.countCommonFriends(1, 3), "Общий друг не удален.");
+    }
+
+    @Test
+    @DisplayName("Должен вытеснять из заполненного кэша друзей самые старые записи")
+    void should_bound_friends_cache() {
+        UserDbStorage storage = new UserDbStorage(jdbc, mapper, true, true, Duration.ofMinutes(1), 2,
+                FriendGraph.DEFAULT_COMPACT_THRESHOLD, FriendGraph.DEFAULT_PARALLEL_THRESHOLD);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        storage.bindTo(registry);
+
+        assertEquals(userDbStorage.countCommonFriends(1, 3), storage.countCommonFriends(1, 3),
+                "Неверное количество общих друзей из кэша.");
+        assertEquals(userDbStorage.countCommonFriends(2, 3), storage.countCommonFriends(2, 3),
+                "Неверное количество общих друзей после вытеснения.");
+        assertEquals(2, registry.get("filmorate.friends.cache.size").gauge().value(),
+                "Кэш не должен превышать заданный размер.");
+        assertEquals(userDbStorage.countCommonFriends(1, 3), storage.countCommonFriends(1, 3),
+                "Неверное количество общих друзей после повторной загрузки.");
+    }
+
+    @Test
+    @DisplayName("Должен предложить пользователю 1 друга своего друга 3")
+    void should_suggest_friends_of_friends() {
+        userDbStorage.addFriend(1, 3, false);
+        userDbStorage.reloadFriendGraph();
+
+        List<User> suggestions = userDbStorage.getSuggestions(1, 10);
+        assertEquals(List.of(2L), suggestions.stream().map(User::getId).toList(), "Неверные предложения.");
+        assertEquals(List.of(), userDbStorage.getSuggestions(2, 10), "У пользователя 2 нет друзей.");
+    }
 }
\ No newline at end of file
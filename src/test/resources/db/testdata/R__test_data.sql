@@ -1,14 +1,3 @@
-MERGE INTO RATINGS (RATING_ID, NAME) VALUES(1, 'G');
-MERGE INTO RATINGS (RATING_ID, NAME) VALUES(2, 'PG');
-MERGE INTO RATINGS (RATING_ID, NAME) VALUES(3, 'PG-13');
-MERGE INTO RATINGS (RATING_ID, NAME) VALUES(4, 'R');
-MERGE INTO RATINGS (RATING_ID, NAME) VALUES(5, 'NC-17');
-MERGE INTO GENRES (GENRE_ID, NAME) VALUES(1, 'Комедия');
-MERGE INTO GENRES (GENRE_ID, NAME) VALUES(2, 'Драма');
-MERGE INTO GENRES (GENRE_ID, NAME) VALUES(3, 'Мультфильм');
-MERGE INTO GENRES (GENRE_ID, NAME) VALUES(4, 'Триллер');
-MERGE INTO GENRES (GENRE_ID, NAME) VALUES(5, 'Документальный');
-MERGE INTO GENRES (GENRE_ID, NAME) VALUES(6, 'Боевик');
 INSERT INTO users (email, login, name, birthday) VALUES ('email1@email.com', 'userlogin1', 'testname1', '2001-01-11');
 INSERT INTO users (email, login, name, birthday) VALUES ('email2@email.com', 'userlogin2', 'testname2', '2001-01-12');
 INSERT INTO users (email, login, name, birthday) VALUES ('email3@email.com', 'userlogin3', 'testname3', '2001-01-13');
@@ -27,4 +16,4 @@ INSERT INTO film_likes (film_id, user_id) VALUES (2, 1);
 INSERT INTO film_likes (film_id, user_id) VALUES (2, 2);
 INSERT INTO film_likes (film_id, user_id) VALUES (2, 3);
 INSERT INTO film_likes (film_id, user_id) VALUES (3, 1);
-
+UPDATE films f SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id);